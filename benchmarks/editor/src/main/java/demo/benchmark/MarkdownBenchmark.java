@@ -0,0 +1,86 @@
+package demo.benchmark;
+
+import demo.service.HtmlConverterService;
+import demo.service.HtmlSanitizerService;
+import demo.service.MarkdownService;
+import demo.web.BigEntryTo;
+import demo.web.ViewEntryTo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/* Measures the conversion of an entry into the HTML shown by the editor, as a whole and one step at a time */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MarkdownBenchmark {
+
+    private HtmlSanitizerService sanitizer;
+    private MarkdownService markdownService;
+    private HtmlConverterService converter;
+
+    private BigEntryTo entry;
+    private String html;
+
+    @Setup
+    public void setUp() {
+        sanitizer = new HtmlSanitizerService();
+        markdownService = new MarkdownService(sanitizer);
+        converter = new HtmlConverterService(markdownService);
+
+        entry = BigEntryTo.markdown(MARKDOWN);
+        html = """
+                <h2>Prerequisites</h2>
+                <p>Install <strong>Java</strong> and <a href="https://maven.apache.org">Maven</a>.</p>
+                <script>alert('Not allowed')</script>
+                <table><thead><tr><th>Tool</th><th>Version</th></tr></thead>
+                <tbody><tr><td>Java</td><td>24</td></tr><tr><td>Maven</td><td>3.9</td></tr></tbody></table>
+                <pre><code>./mvnw clean verify</code></pre>
+                """;
+    }
+
+    @Benchmark
+    public ViewEntryTo toView() {
+        return converter.toView(entry);
+    }
+
+    @Benchmark
+    public String render() {
+        return markdownService.render(MARKDOWN);
+    }
+
+    @Benchmark
+    public String sanitize() {
+        return sanitizer.sanitize(html);
+    }
+
+    private static final String MARKDOWN = """
+            ## Prerequisites
+
+            Install **Java** and [Maven](https://maven.apache.org), then build the application.
+
+            | Tool  | Version |
+            |-------|---------|
+            | Java  | 24      |
+            | Maven | 3.9     |
+
+            - Clone the repository
+            - Run the build
+
+            ```shell
+            ./mvnw clean verify
+            ```
+            """;
+}
@@ -0,0 +1,57 @@
+package demo.benchmark;
+
+import demo.domain.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DocumentParseBenchmark {
+
+    /* Small is a typical tutorial, huge is a generated playbook */
+    @Param({"10", "500", "20000"})
+    private int numberOfEntries;
+
+    private String json;
+    private Path file;
+
+    @Setup
+    public void setUp() throws IOException {
+        json = Playbooks.json(numberOfEntries);
+        file = Files.writeString(Files.createTempFile("sw-playbook", ".json"), json);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public Document parseJson() {
+        return Document.parse(json);
+    }
+
+    @Benchmark
+    public Document parseFile() {
+        return Document.parse(file);
+    }
+}
@@ -0,0 +1,155 @@
+package demo.benchmark;
+
+import demo.domain.Document;
+import demo.domain.Entry;
+import demo.domain.Result;
+import demo.domain.RunContext;
+import demo.domain.RunOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/* Measures how the entries format their output, without running any commands */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EntryBenchmark {
+
+    private Path displayed;
+    private RunContext context;
+    private RunContext uncached;
+
+    private Entry command;
+    private Entry displayFile;
+    private Entry heading;
+    private Entry markdown;
+    private Entry todo;
+
+    @Setup
+    public void setUp() throws IOException {
+        displayed = Files.write(Files.createTempFile("Main", ".java"), IntStream.rangeClosed(1, 1_000)
+                .mapToObj("        System.out.println(\"Line %d\");"::formatted)
+                .toList());
+        /* The file cache only keeps the files that were not modified just before they were read */
+        Files.setLastModifiedTime(displayed, FileTime.from(Instant.now().minus(Duration.ofHours(1))));
+
+        final RunOptions defaults = RunOptions.defaults();
+        context = RunContext.create(defaults);
+        uncached = RunContext.create(new RunOptions(defaults.shellMode(), defaults.outputBufferSize(),
+                defaults.cache(), defaults.journal(), defaults.resume(), defaults.progress(),
+                defaults.killGracePeriod(), 0, defaults.playbookDirectory()));
+
+        /* The 'skip' tag only formats the commands, so that the fork of the shell is excluded */
+        final List<Entry> entries = Document.parse("""
+                {
+                  "entries": [
+                    {
+                      "type": "Command",
+                      "commands": [%s],
+                      "tags": ["skip"],
+                      "indent": 2
+                    },
+                    {
+                      "type": "DisplayFile",
+                      "path": "%s",
+                      "from_line": 100,
+                      "number_of_lines": 200,
+                      "indent": 4
+                    },
+                    {
+                      "type": "Heading",
+                      "level": "H2",
+                      "title": "Build the application"
+                    },
+                    {
+                      "type": "Markdown",
+                      "contents": [%s]
+                    },
+                    {
+                      "type": "Todo",
+                      "comments": ["Explain the build", "Add the prerequisites"]
+                    }
+                  ]
+                }
+                """.formatted(lines("./mvnw clean verify --projects module-%d", 20),
+                displayed,
+                lines("A paragraph of the tutorial, line %d.", 20))).entries();
+        command = entries.get(0);
+        displayFile = entries.get(1);
+        heading = entries.get(2);
+        markdown = entries.get(3);
+        todo = entries.get(4);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.close();
+        uncached.close();
+        Files.deleteIfExists(displayed);
+    }
+
+    @Benchmark
+    public StringBuilder runCommand() {
+        final StringBuilder sink = new StringBuilder();
+        command.run(context, sink);
+        return sink;
+    }
+
+    /* Reads the lines from the file every time, as a file cache of size 0 keeps no files */
+    @Benchmark
+    public StringBuilder runDisplayFile() {
+        final StringBuilder sink = new StringBuilder();
+        displayFile.run(uncached, sink);
+        return sink;
+    }
+
+    @Benchmark
+    public StringBuilder runDisplayFileFromCache() {
+        final StringBuilder sink = new StringBuilder();
+        displayFile.run(context, sink);
+        return sink;
+    }
+
+    @Benchmark
+    public Result runHeading() {
+        return heading.run();
+    }
+
+    @Benchmark
+    public Result runMarkdown() {
+        return markdown.run();
+    }
+
+    @Benchmark
+    public Result runTodo() {
+        return todo.run();
+    }
+
+    private static String lines(final String format, final int count) {
+        return IntStream.rangeClosed(1, count)
+                .mapToObj(i -> '"' + format.formatted(i) + '"')
+                .collect(Collectors.joining(", "));
+    }
+}
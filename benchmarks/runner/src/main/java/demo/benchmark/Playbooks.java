@@ -0,0 +1,58 @@
+package demo.benchmark;
+
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/* Generates playbooks with a mix of the most common entries */
+final class Playbooks {
+
+    private Playbooks() {}
+
+    static String json(final int numberOfEntries) {
+        return IntStream.range(0, numberOfEntries)
+                .mapToObj(Playbooks::entry)
+                .collect(Collectors.joining(",\n", "{\n  \"entries\": [\n", "\n  ]\n}\n"));
+    }
+
+    private static String entry(final int index) {
+        return switch (index % 4) {
+            case 0 -> """
+                        {
+                          "type": "Heading",
+                          "level": "H2",
+                          "title": "Section %d"
+                        }""".formatted(index);
+            case 1 -> """
+                        {
+                          "type": "Markdown",
+                          "contents": [
+                            "Some text about section %d,",
+                            "which spans more than one line."
+                          ]
+                        }""".formatted(index);
+            case 2 -> """
+                        {
+                          "type": "Command",
+                          "commands": [
+                            "echo 'Building section %d'",
+                            "./mvnw clean verify"
+                          ],
+                          "should_finish_within": "5 minutes",
+                          "output": {
+                            "show": true,
+                            "caption": "The output of the build",
+                            "content_type": "text",
+                            "tail_lines": 20
+                          }
+                        }""".formatted(index);
+            default -> """
+                        {
+                          "type": "DisplayFile",
+                          "path": "src/main/java/demo/Main%d.java",
+                          "from_line": 10,
+                          "number_of_lines": 20,
+                          "indent": 2
+                        }""".formatted(index);
+        };
+    }
+}
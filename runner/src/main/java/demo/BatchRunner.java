@@ -0,0 +1,201 @@
+package demo;
+
+import demo.domain.Document;
+import demo.domain.Entry;
+import demo.domain.RunContext;
+import demo.domain.RunOptions;
+import demo.output.OutputFile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static java.util.Objects.requireNonNull;
+
+final class BatchRunner {
+
+    private final int parallelism;
+    private final Path output;
+    private final Function<Path, RunOptions> options;
+    private final Function<Path, Stream<Entry>> playbooks;
+
+    BatchRunner(final int parallelism,
+                final Path output,
+                final Function<Path, RunOptions> options,
+                final Function<Path, Stream<Entry>> playbooks) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("The parallelism must be at least 1");
+        }
+
+        /* Every playbook would write to the same file at the same time */
+        if (output.isAbsolute()) {
+            throw new IllegalArgumentException("The output of each playbook is written next to it, and cannot be the"
+                    + " absolute path " + output);
+        }
+
+        this.parallelism = parallelism;
+        this.output = requireNonNull(output);
+        this.options = requireNonNull(options);
+        this.playbooks = requireNonNull(playbooks);
+    }
+
+    static List<Path> find(final List<String> patterns) {
+        final Set<Path> playbooks = new LinkedHashSet<>();
+        for (final String pattern : patterns) {
+            final List<Path> found = glob(pattern);
+            if (found.isEmpty()) {
+                throw new IllegalArgumentException("No playbooks match " + pattern);
+            }
+            playbooks.addAll(found);
+        }
+        return List.copyOf(playbooks);
+    }
+
+    List<PlaybookResult> run(final List<Path> playbooks) {
+        final Semaphore permits = new Semaphore(parallelism);
+
+        final List<Future<PlaybookResult>> futures = new ArrayList<>(playbooks.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (final Path playbook : playbooks) {
+                futures.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        return run(playbook);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+        }
+
+        return futures.stream()
+                .map(BatchRunner::resultOf)
+                .toList();
+    }
+
+    private PlaybookResult run(final Path playbook) {
+        final Path path = playbook.toAbsolutePath().normalize();
+        final Path target = path.resolveSibling(output);
+        final long started = System.nanoTime();
+
+        try (Stream<Entry> entries = playbooks.apply(path);
+             RunContext context = RunContext.create(options.apply(target).withPlaybookDirectory(path.getParent()));
+             OutputFile writer = OutputFile.open(target)) {
+            writer.write(Main.HEADER);
+
+            final Stream<Entry> expanded = Document.expandIncludes(entries, path.getParent());
+            final boolean ok = Document.run(context, Main.sections(expanded, writer).iterator(), writer);
+            final OutputFile.Published published = writer.publish();
+            return new PlaybookResult(path, target, ok, elapsedSince(started),
+                    ok ? Optional.empty() : Optional.of("An entry failed"), Optional.of(published));
+        } catch (final IOException | RuntimeException e) {
+            return new PlaybookResult(path, target, false, elapsedSince(started),
+                    Optional.of(String.valueOf(e.getMessage())), Optional.empty());
+        }
+    }
+
+    static String summary(final List<PlaybookResult> results) {
+        final int width = results.stream()
+                .mapToInt(result -> result.playbook().toString().length())
+                .max()
+                .orElse(0);
+
+        final StringBuilder summary = new StringBuilder();
+        for (final PlaybookResult result : results) {
+            summary.append(("%-" + width + "s  %-6s  %8d ms%s%n").formatted(
+                    result.playbook(),
+                    result.ok() ? "ok" : "failed",
+                    result.duration().toMillis(),
+                    result.failure().or(() -> result.published().map(BatchRunner::changes))
+                            .map(note -> "  " + note)
+                            .orElse("")));
+        }
+
+        final long failed = results.stream().filter(result -> !result.ok()).count();
+        final Duration total = results.stream().map(PlaybookResult::duration).reduce(Duration.ZERO, Duration::plus);
+        summary.append("%d playbook(s), %d failed, %d ms in total%n".formatted(results.size(), failed, total.toMillis()));
+        return summary.toString();
+    }
+
+    private static String changes(final OutputFile.Published published) {
+        if (!published.changed()) {
+            return "unchanged";
+        }
+        return published.changedSections().isEmpty()
+                ? "changed"
+                : "changed: " + String.join(", ", published.changedSections());
+    }
+
+    private static List<Path> glob(final String pattern) {
+        final int wildcard = indexOfWildcard(pattern);
+        if (wildcard < 0) {
+            return List.of(Path.of(pattern));
+        }
+
+        /* Only the directories below the part of the pattern without wildcards are searched */
+        final int separator = pattern.lastIndexOf('/', wildcard);
+        final Path base = Path.of(separator < 0 ? "" : pattern.substring(0, separator + 1));
+        final PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+
+        try (Stream<Path> paths = Files.walk(base.toString().isEmpty() ? Path.of(".") : base)) {
+            return paths
+                    .map(file -> base.toString().isEmpty() ? Path.of(".").relativize(file) : file)
+                    .filter(matcher::matches)
+                    .filter(Files::isRegularFile)
+                    .sorted()
+                    .toList();
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to find the playbooks matching " + pattern, e);
+        }
+    }
+
+    private static int indexOfWildcard(final String pattern) {
+        for (int i = 0; i < pattern.length(); i++) {
+            if ("*?[{".indexOf(pattern.charAt(i)) >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static Duration elapsedSince(final long started) {
+        return Duration.ofNanos(System.nanoTime() - started);
+    }
+
+    private static PlaybookResult resultOf(final Future<PlaybookResult> future) {
+        try {
+            return future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while running the playbooks", e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException("Failed to run the playbooks", e.getCause());
+        }
+    }
+
+    record PlaybookResult(Path playbook,
+                          Path output,
+                          boolean ok,
+                          Duration duration,
+                          Optional<String> failure,
+                          Optional<OutputFile.Published> published) {}
+}
@@ -0,0 +1,235 @@
+package demo;
+
+import demo.cli.CommandLineArguments;
+import demo.domain.Plan;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+/* A request is the working directory of the client followed by its arguments.  The response is the console output in
+   frames, each the length of the frame followed by its bytes, and then a negative length and the exit status. */
+final class Daemon implements AutoCloseable {
+
+    private final Path socket;
+    private final Semaphore permits;
+    private final Path workingDir = Path.of("").toAbsolutePath();
+    private final Map<Path, ParsedPlaybook> playbooks = new ConcurrentHashMap<>();
+
+    private final ServerSocketChannel server;
+
+    Daemon(final Path socket, final int maxConcurrentRuns) {
+        if (maxConcurrentRuns < 1) {
+            throw new IllegalArgumentException("The daemon must be allowed to run at least 1 request at a time");
+        }
+
+        this.socket = requireNonNull(socket);
+        this.permits = new Semaphore(maxConcurrentRuns);
+        this.server = listen(socket);
+    }
+
+    void serve() {
+        System.out.println("Listening on " + socket.toAbsolutePath() + " for requests from " + workingDir);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            while (server.isOpen()) {
+                final SocketChannel client = server.accept();
+                executor.submit(() -> handle(client));
+            }
+        } catch (final AsynchronousCloseException _) {
+            /* The daemon was closed while waiting for a request */
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to accept requests on " + socket, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try (ServerSocketChannel _ = server) {
+            deleteSocket(socket);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to close the daemon", e);
+        }
+    }
+
+    private void handle(final SocketChannel client) {
+        try (SocketChannel _ = client;
+             DataInputStream input = new DataInputStream(Channels.newInputStream(client));
+             DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(client)))) {
+            final Request request = readRequest(input);
+
+            final PrintStream console = new PrintStream(new FrameOutputStream(output), true, UTF_8);
+            final int status = run(request, console);
+            console.flush();
+
+            output.writeInt(-1);
+            output.writeInt(status);
+            output.flush();
+        } catch (final IOException e) {
+            /* The client went away, there is no one left to tell */
+            System.out.println("Failed to serve a request: " + e.getMessage());
+        }
+    }
+
+    private int run(final Request request, final PrintStream console) {
+        if (!request.workingDir().equals(workingDir)) {
+            console.println("The daemon runs the commands from " + workingDir + ", start one in " + request.workingDir());
+            return 2;
+        }
+
+        final CommandLineArguments cla;
+        try {
+            cla = CommandLineArguments.parse(request.args().toArray(String[]::new));
+        } catch (final RuntimeException e) {
+            console.println(e.getMessage());
+            return 2;
+        }
+
+        if (cla.daemon() || cla.watch()) {
+            console.println("The daemon does not run requests that keep running, run these without '--client'");
+            return 2;
+        }
+
+        if (!permits.tryAcquire()) {
+            console.println("Waiting for another request to finish");
+            permits.acquireUninterruptibly();
+        }
+
+        try {
+            return Main.run(cla, console, path -> plan(path).entries().stream(), this::plan, true);
+        } catch (final RuntimeException e) {
+            console.println("Failed to run the request: " + e.getMessage());
+            return 1;
+        } finally {
+            permits.release();
+        }
+    }
+
+    private Plan plan(final Path file) {
+        final Path path = file.toAbsolutePath().normalize();
+        try {
+            final FileTime modified = Files.getLastModifiedTime(path);
+            final long size = Files.size(path);
+            return playbooks.compute(path, (_, parsed) ->
+                            parsed != null && parsed.modified().equals(modified) && parsed.size() == size
+                                    ? parsed
+                                    : new ParsedPlaybook(modified, size, Plan.parse(path)))
+                    .plan();
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to read the Sociable Weaver playbook file: " + path, e);
+        }
+    }
+
+    private static ServerSocketChannel listen(final Path socket) {
+        removeStaleSocket(socket);
+
+        try {
+            final ServerSocketChannel channel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+            channel.bind(UnixDomainSocketAddress.of(socket));
+            return channel;
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to listen on " + socket, e);
+        }
+    }
+
+    private static void removeStaleSocket(final Path socket) {
+        if (!Files.exists(socket)) {
+            return;
+        }
+
+        try (SocketChannel _ = SocketChannel.open(UnixDomainSocketAddress.of(socket))) {
+            throw new IllegalStateException("Another daemon is listening on " + socket);
+        } catch (final IOException _) {
+            /* No one is listening, the socket was left behind by a daemon that did not stop cleanly */
+            deleteSocket(socket);
+        }
+    }
+
+    private static void deleteSocket(final Path socket) {
+        try {
+            Files.deleteIfExists(socket);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to delete the socket " + socket, e);
+        }
+    }
+
+    static void writeRequest(final DataOutputStream output, final Path workingDir, final List<String> args)
+            throws IOException {
+        output.writeUTF(workingDir.toString());
+        output.writeInt(args.size());
+        for (final String arg : args) {
+            output.writeUTF(arg);
+        }
+        output.flush();
+    }
+
+    private static Request readRequest(final DataInputStream input) throws IOException {
+        final Path workingDir = Path.of(input.readUTF());
+        final int count = input.readInt();
+        final List<String> args = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            args.add(input.readUTF());
+        }
+        return new Request(workingDir, args);
+    }
+
+    static int readResponse(final DataInputStream input, final PrintStream console) throws IOException {
+        for (int length; (length = input.readInt()) >= 0; ) {
+            console.write(input.readNBytes(length));
+            console.flush();
+        }
+        return input.readInt();
+    }
+
+    private record Request(Path workingDir, List<String> args) {}
+
+    private record ParsedPlaybook(FileTime modified, long size, Plan plan) {}
+
+    private static final class FrameOutputStream extends OutputStream {
+
+        private final DataOutputStream output;
+
+        private FrameOutputStream(final DataOutputStream output) {
+            this.output = output;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public synchronized void write(final byte[] bytes, final int offset, final int length) throws IOException {
+            output.writeInt(length);
+            output.write(bytes, offset, length);
+        }
+
+        @Override
+        public synchronized void flush() throws IOException {
+            output.flush();
+        }
+    }
+}
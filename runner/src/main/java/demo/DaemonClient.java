@@ -0,0 +1,29 @@
+package demo;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.List;
+
+final class DaemonClient {
+
+    private DaemonClient() {}
+
+    static int forward(final Path socket, final String[] args, final PrintStream console) {
+        try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(socket));
+             DataInputStream input = new DataInputStream(Channels.newInputStream(channel));
+             DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)))) {
+            Daemon.writeRequest(output, Path.of("").toAbsolutePath(), List.of(args));
+            return Daemon.readResponse(input, console);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to run the request with the daemon listening on " + socket, e);
+        }
+    }
+}
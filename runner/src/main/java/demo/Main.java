@@ -1,41 +1,202 @@
 package demo;
 
+import demo.cache.CommandCache;
+import demo.cache.FileContentCache;
 import demo.cli.CommandLineArguments;
 import demo.domain.Document;
+import demo.domain.Entry;
+import demo.domain.Heading;
+import demo.domain.Plan;
+import demo.domain.RunContext;
+import demo.journal.Journal;
+import demo.output.OutputFile;
+import demo.shell.ProcessReaper;
+import demo.timing.Timings;
 
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.PrintStream;
 import java.io.UncheckedIOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 public final class Main {
 
     public static void main(final String[] args) {
         final CommandLineArguments cla = CommandLineArguments.parse(args);
 
-        if (cla.showHelp()) {
-            cla.printHelp();
+        if (cla.daemon()) {
+            try (Daemon daemon = new Daemon(cla.socket(), cla.parallelism())) {
+                /* The daemon is usually stopped with a signal, which should not leave the socket behind */
+                Runtime.getRuntime().addShutdownHook(new Thread(daemon::close));
+                daemon.serve();
+            }
             return;
         }
 
-        final Path path = cla.playbook().toAbsolutePath();
-        System.out.println("Running file: " + path);
+        /* A playbook run on its own exits with 0 even when an entry fails, the output shows the failure */
+        final int status = cla.client()
+                ? DaemonClient.forward(cla.socket(), args, System.out)
+                : run(cla, System.out, Document::stream, Plan::parse, false);
+        if (status != 0) {
+            System.exit(status);
+        }
+    }
+
+    /* The daemon runs the requests of its clients this way, with the playbooks it keeps parsed */
+    static int run(final CommandLineArguments cla,
+                   final PrintStream console,
+                   final Function<Path, Stream<Entry>> playbooks,
+                   final Function<Path, Plan> plans,
+                   final boolean reportFailedEntries) {
+        if (cla.showHelp()) {
+            cla.printHelp(console);
+            return 0;
+        }
+
+        if (cla.compile()) {
+            final Path path = cla.playbook().toAbsolutePath();
+            console.println("Compiled file: " + path + " into " + Document.compile(path));
+            return 0;
+        }
+
+        if (cla.check()) {
+            final Path path = cla.playbook().toAbsolutePath();
+            final List<Plan.Problem> problems = plans.apply(path).check(cla.runOptions().playbookDirectory());
+            printProblems(console, path, problems);
+            if (problems.isEmpty()) {
+                console.println("No problems found in " + path);
+            }
+            return problems.stream().anyMatch(Plan.Problem::isError) ? 1 : 0;
+        }
+
+        if (!cla.batch().isEmpty()) {
+            return runBatch(cla, console, playbooks);
+        }
 
-        final Document document = Document.parse(path);
+        final Path path = cla.playbook().toAbsolutePath();
+        console.println("Running file: " + path);
 
-        /* TODO: create the parent directories if missing */
         final Path output = cla.output().toAbsolutePath();
 
-        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(output))) {
-            writer.println("[//]: # (Automatically generated by Sociable Weaver)");
+        if (cla.watch()) {
+            new PlaybookWatcher(path, output, cla.runOptions()).watch();
+            return 0;
+        }
+
+        final Optional<Plan> plan = cla.skipCheck() ? Optional.empty() : Optional.of(plans.apply(path));
+        if (plan.isPresent()) {
+            final List<Plan.Problem> problems = plan.get().check(cla.runOptions().playbookDirectory());
+            printProblems(console, path, problems);
+            if (problems.stream().anyMatch(Plan.Problem::isError)) {
+                console.println("Nothing was run, fix the errors or run the playbook with '--no-check'");
+                return 1;
+            }
+        }
+
+        /* Without a plan, the entries start running while the rest of the playbook is still being read */
+        try (Stream<Entry> entries = plan.map(p -> p.entries().stream()).orElseGet(() -> playbooks.apply(path));
+             RunContext context = RunContext.create(cla.runOptions(), console);
+             OutputFile writer = OutputFile.open(output)) {
+            plan.ifPresent(p -> p.prepare(context));
+            writer.write(HEADER);
+
+            final Stream<Entry> expanded = Document.expandIncludes(entries, path.getParent());
+            final boolean ok = Document.run(context, sections(expanded, writer).iterator(), writer);
+
+            /* A run that did not complete leaves the previous output as it was */
+            printChanges(console, writer.publish());
 
-            document.run(o -> {
-                writer.println(o);
-                writer.flush();
-            });
+            printTimings(console, context.timings());
+            if (cla.writeTimings()) {
+                context.timings().writeJson(cla.timings().toAbsolutePath());
+            }
+
+            printResumeStatistics(console, context.journal());
+            printCacheStatistics(console, context.cache());
+            printFileCacheStatistics(console, context.files());
+            printReaperStatistics(console, context.reaper());
+            return ok || !reportFailedEntries ? 0 : 1;
         } catch (final IOException e) {
             throw new UncheckedIOException("Failed to write output", e);
         }
     }
+
+    private static int runBatch(final CommandLineArguments cla,
+                                final PrintStream console,
+                                final Function<Path, Stream<Entry>> playbooks) {
+        final BatchRunner runner = new BatchRunner(cla.parallelism(), cla.output(), cla::runOptions, playbooks);
+        final List<Path> paths = BatchRunner.find(cla.batch());
+        console.println("Running " + paths.size() + " playbook(s), " + cla.parallelism() + " at a time");
+
+        final List<BatchRunner.PlaybookResult> results = runner.run(paths);
+        console.print(BatchRunner.summary(results));
+
+        return results.stream().allMatch(BatchRunner.PlaybookResult::ok) ? 0 : 1;
+    }
+
+    static Stream<Entry> sections(final Stream<Entry> entries, final OutputFile output) {
+        return entries.peek(entry -> {
+            if (entry instanceof Heading heading) {
+                output.section(heading.title());
+            }
+        });
+    }
+
+    private static void printProblems(final PrintStream console, final Path playbook, final List<Plan.Problem> problems) {
+        for (final Plan.Problem problem : problems) {
+            console.println("%s:%d:%d %s %s: %s".formatted(playbook, problem.line(), problem.column(),
+                    problem.pointer(), problem.severity().name().toLowerCase(Locale.ROOT), problem.message()));
+        }
+        if (!problems.isEmpty()) {
+            console.println("Found " + problems.size() + " problem(s) in " + playbook);
+        }
+    }
+
+    private static void printChanges(final PrintStream console, final OutputFile.Published published) {
+        if (!published.changed()) {
+            console.println("Output unchanged: " + published.target() + " was left as it was");
+        } else if (!published.changedSections().isEmpty()) {
+            console.println("Changed sections: " + String.join(", ", published.changedSections()));
+        }
+    }
+
+    private static void printTimings(final PrintStream console, final Timings timings) {
+        if (!timings.timings().isEmpty()) {
+            console.println("Slowest entries");
+            console.print(timings.summary(SLOWEST_ENTRIES));
+        }
+    }
+
+    private static void printResumeStatistics(final PrintStream console, final Journal journal) {
+        if (journal.replayed() > 0) {
+            console.println("Resumed: " + journal.replayed() + " entries replayed from the journal");
+        }
+    }
+
+    private static void printReaperStatistics(final PrintStream console, final ProcessReaper reaper) {
+        if (reaper.reaped() > 0) {
+            console.println("Stopped " + reaper.reaped() + " process(es) left behind by commands that ran out of time");
+        }
+    }
+
+    private static void printCacheStatistics(final PrintStream console, final CommandCache cache) {
+        if (cache.hits() + cache.misses() > 0) {
+            console.println("Command cache: " + cache.hits() + " hit(s), " + cache.misses() + " miss(es)");
+        }
+    }
+
+    private static void printFileCacheStatistics(final PrintStream console, final FileContentCache files) {
+        if (files.hits() + files.misses() > 0) {
+            console.println("File cache: %d hit(s), %d miss(es), %.0f%% hit rate"
+                    .formatted(files.hits(), files.misses(), files.hitRate() * 100));
+        }
+    }
+
+    static final String HEADER = "[//]: # (Automatically generated by Sociable Weaver)\n";
+
+    private static final int SLOWEST_ENTRIES = 10;
 }
@@ -0,0 +1,204 @@
+package demo;
+
+import demo.domain.DisplayFile;
+import demo.domain.Document;
+import demo.domain.Entry;
+import demo.domain.Parallel;
+import demo.domain.Result;
+import demo.domain.RunContext;
+import demo.domain.RunOptions;
+import demo.output.OutputFile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+import static java.util.Objects.requireNonNull;
+
+final class PlaybookWatcher {
+
+    private final Path playbook;
+    private final Path output;
+    private final RunOptions options;
+    private final Map<Entry, String> rendered = new HashMap<>();
+    private final Set<Path> watched = new HashSet<>();
+    private final Set<Path> sources = new HashSet<>();
+
+    PlaybookWatcher(final Path playbook, final Path output, final RunOptions options) {
+        this.playbook = requireNonNull(playbook).toAbsolutePath().normalize();
+        this.output = requireNonNull(output).toAbsolutePath().normalize();
+        this.options = requireNonNull(options);
+        this.sources.add(this.playbook);
+    }
+
+    void watch() {
+        try (WatchService service = FileSystems.getDefault().newWatchService()) {
+            register(service, playbook.getParent());
+
+            Set<Path> changed = Set.of();
+            while (true) {
+                renderQuietly(service, changed);
+                System.out.println("Watching " + playbook + " for changes");
+                changed = awaitChanges(service);
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to watch the playbook", e);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void renderQuietly(final WatchService service, final Set<Path> changed) {
+        /* A playbook that is being edited may not parse, in which case the next change is awaited */
+        try {
+            final Set<Path> next = render(changed);
+
+            sources.clear();
+            sources.addAll(next);
+            sources.forEach(file -> register(service, file.getParent()));
+        } catch (final RuntimeException e) {
+            System.out.println("Failed to render the playbook: " + e.getMessage());
+        }
+    }
+
+    Set<Path> render(final Set<Path> changed) {
+        final Set<Path> renderedFrom = new HashSet<>();
+        renderedFrom.add(playbook);
+
+        final List<Entry> expanded;
+        try (Stream<Entry> entries = Document.expandIncludes(Document.parse(playbook).entries().stream(),
+                playbook.getParent(), renderedFrom::add)) {
+            expanded = entries.toList();
+        }
+        expanded.stream()
+                .flatMap(PlaybookWatcher::displayFiles)
+                .map(this::absolute)
+                .forEach(renderedFrom::add);
+
+        rendered.keySet().removeIf(entry -> displayFiles(entry).anyMatch(file -> changed.contains(absolute(file))));
+
+        final List<Entry> entries = expanded.stream()
+                .map(entry -> rendered.containsKey(entry) ? new Reused(entry, rendered.get(entry)) : entry)
+                .toList();
+        final long reused = entries.stream().filter(Reused.class::isInstance).count();
+
+        final Map<Entry, String> next = new HashMap<>();
+        try (RunContext context = RunContext.create(options);
+             OutputFile writer = OutputFile.open(output)) {
+            writer.write(Main.HEADER);
+
+            new Document(entries).runEntries(context, (entry, result) -> {
+                final String text = switch (result) {
+                    case Result.Ok ok -> ok.output();
+                    case Result.Error e -> e.error();
+                    case Result.Streamed _ -> throw new IllegalStateException("The output of the entry was not collected");
+                };
+
+                write(writer, text);
+                if (result instanceof Result.Ok) {
+                    next.put(entry instanceof Reused r ? r.entry() : entry, text);
+                }
+            });
+            writer.publish();
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to write output", e);
+        }
+
+        rendered.clear();
+        rendered.putAll(next);
+        System.out.println("Rendered " + output + ", " + (entries.size() - reused) + " of " + entries.size()
+                + " entries were run");
+
+        return renderedFrom;
+    }
+
+    private Set<Path> awaitChanges(final WatchService service) throws InterruptedException {
+        final Set<Path> changed = new HashSet<>();
+
+        /* The watched directories hold other files too, such as the output itself, which are ignored */
+        while (changed.stream().noneMatch(sources::contains)) {
+            changed.clear();
+            collect(service.take(), changed);
+
+            /* Editors often write a file more than once when saving it, the changes are taken together */
+            for (WatchKey key; (key = service.poll(DEBOUNCE.toMillis(), TimeUnit.MILLISECONDS)) != null; ) {
+                collect(key, changed);
+            }
+        }
+
+        return changed;
+    }
+
+    private static void collect(final WatchKey key, final Set<Path> changed) {
+        final Path directory = (Path) key.watchable();
+        for (final WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() != OVERFLOW) {
+                changed.add(directory.resolve((Path) event.context()).normalize());
+            }
+        }
+        key.reset();
+    }
+
+    private void register(final WatchService service, final Path directory) {
+        if (!Files.isDirectory(directory) || !watched.add(directory)) {
+            return;
+        }
+
+        try {
+            directory.register(service, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+        } catch (final IOException e) {
+            watched.remove(directory);
+            System.out.println("Failed to watch " + directory + ": " + e.getMessage());
+        }
+    }
+
+    private static Stream<DisplayFile> displayFiles(final Entry entry) {
+        return switch (entry) {
+            case DisplayFile file -> Stream.of(file);
+            case Parallel parallel -> parallel.entries().stream().flatMap(PlaybookWatcher::displayFiles);
+            default -> Stream.empty();
+        };
+    }
+
+    private Path absolute(final DisplayFile file) {
+        return file.resolve(options.playbookDirectory()).normalize();
+    }
+
+    private static void write(final Writer writer, final String text) {
+        try {
+            writer.write(text);
+            writer.write('\n');
+            writer.flush();
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to write output", e);
+        }
+    }
+
+    private record Reused(Entry entry, String output) implements Entry {
+
+        @Override
+        public Result run() {
+            return Result.ok(output);
+        }
+    }
+
+    private static final Duration DEBOUNCE = Duration.ofMillis(300);
+}
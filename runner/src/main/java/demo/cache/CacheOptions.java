@@ -0,0 +1,47 @@
+package demo.cache;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+
+import static java.util.Objects.requireNonNull;
+
+public record CacheOptions(Mode mode, Path directory, long maxSize, Duration maxAge) {
+
+    public CacheOptions {
+        requireNonNull(mode);
+        requireNonNull(directory);
+        requireNonNull(maxAge);
+
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("The cache max size cannot be negative");
+        }
+    }
+
+    public enum Mode {
+        ENABLED,
+        /* Ignores the stored results but stores new ones */
+        REFRESH,
+        DISABLED,
+    }
+
+    public static CacheOptions defaults() {
+        return new CacheOptions(Mode.ENABLED, defaultDirectory(), DEFAULT_MAX_SIZE, DEFAULT_MAX_AGE);
+    }
+
+    public CacheOptions withMode(final Mode mode) {
+        return new CacheOptions(mode, directory, maxSize, maxAge);
+    }
+
+    public static Path defaultDirectory() {
+        return Optional.ofNullable(System.getenv("XDG_CACHE_HOME"))
+                .filter(value -> !value.isBlank())
+                .map(Path::of)
+                .orElseGet(() -> Path.of(System.getProperty("user.home"), ".cache"))
+                .resolve("sociable-weaver")
+                .resolve("commands");
+    }
+
+    public static final long DEFAULT_MAX_SIZE = 256L * 1024 * 1024;
+    public static final Duration DEFAULT_MAX_AGE = Duration.ofDays(30);
+}
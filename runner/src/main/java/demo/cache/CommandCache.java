@@ -0,0 +1,269 @@
+package demo.cache;
+
+import demo.shell.ShellOutput;
+import demo.shell.ShellScriptResult;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+public final class CommandCache implements AutoCloseable {
+
+    private final CacheOptions options;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong stores = new AtomicLong();
+
+    private CommandCache(final CacheOptions options) {
+        this.options = requireNonNull(options);
+    }
+
+    public static CommandCache create(final CacheOptions options) {
+        return new CommandCache(options);
+    }
+
+    public boolean isEnabled() {
+        return options.mode() != CacheOptions.Mode.DISABLED;
+    }
+
+    public String key(final String script, final Path directory, final Optional<Path> workingDir,
+                      final List<Path> inputs) {
+        final MessageDigest digest = sha256();
+        update(digest, "script", script);
+        update(digest, "cwd", directory.toAbsolutePath().toString());
+        update(digest, "working-dir", workingDir.map(Path::toString).orElse(""));
+
+        final Path commandDirectory = directory.resolve(workingDir.orElse(Path.of("")));
+        for (final Path input : inputs) {
+            update(digest, "input", input.toString());
+            updateWithContent(digest, commandDirectory.resolve(input));
+        }
+
+        for (final Map.Entry<String, String> variable : new TreeMap<>(System.getenv()).entrySet()) {
+            if (!VOLATILE_VARIABLES.contains(variable.getKey())) {
+                update(digest, "env", variable.getKey() + '=' + variable.getValue());
+            }
+        }
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public Optional<ShellScriptResult> find(final String key) {
+        if (options.mode() != CacheOptions.Mode.ENABLED) {
+            return Optional.empty();
+        }
+
+        final Path file = file(key);
+        final Optional<Integer> exitCode = readExitCode(file);
+        if (exitCode.isEmpty()) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+
+        hits.incrementAndGet();
+        touch(file);
+        return Optional.of(new ShellScriptResult(exitCode.get(), new CachedOutput(file)));
+    }
+
+    public void store(final String key, final ShellScriptResult result) {
+        if (!isEnabled()) {
+            return;
+        }
+
+        try {
+            Files.createDirectories(options.directory());
+            final Path temporary = Files.createTempFile(options.directory(), key, ".tmp");
+            try (BufferedWriter writer = Files.newBufferedWriter(temporary, UTF_8);
+                 Stream<String> lines = result.readOutput()) {
+                writer.write(HEADER + result.exitCode() + '\n');
+                for (final Iterator<String> iterator = lines.iterator(); iterator.hasNext(); ) {
+                    writer.write(iterator.next());
+                    writer.write('\n');
+                }
+            }
+            move(temporary, file(key));
+            stores.incrementAndGet();
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to store the command result in the cache", e);
+        }
+    }
+
+    public long hits() {
+        return hits.get();
+    }
+
+    public long misses() {
+        return misses.get();
+    }
+
+    public long stores() {
+        return stores.get();
+    }
+
+    @Override
+    public void close() {
+        /* Runs that did not use the cache leave it as is */
+        if (isEnabled() && hits.get() + misses.get() + stores.get() > 0) {
+            evict();
+        }
+    }
+
+    private void evict() {
+        if (!Files.isDirectory(options.directory())) {
+            return;
+        }
+
+        final Instant oldest = Instant.now().minus(options.maxAge());
+        final List<CachedFile> files = new ArrayList<>();
+        /* Other runs may be storing results, with temporary files, or evicting them from the same directory */
+        try (Stream<Path> paths = Files.list(options.directory())) {
+            for (final Path path : paths.filter(path -> path.getFileName().toString().endsWith(".out")).toList()) {
+                final Optional<CachedFile> file = cachedFile(path);
+                if (file.isEmpty()) {
+                    continue;
+                }
+
+                if (file.get().lastUsed().isBefore(oldest)) {
+                    Files.deleteIfExists(path);
+                } else {
+                    files.add(file.get());
+                }
+            }
+
+            long size = files.stream().mapToLong(CachedFile::size).sum();
+            files.sort(Comparator.comparing(CachedFile::lastUsed));
+            for (final CachedFile file : files) {
+                if (size <= options.maxSize()) {
+                    break;
+                }
+                Files.deleteIfExists(file.path());
+                size -= file.size();
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to evict old entries from the cache", e);
+        }
+    }
+
+    private static Optional<CachedFile> cachedFile(final Path path) throws IOException {
+        try {
+            return Optional.of(new CachedFile(path, Files.size(path), Files.getLastModifiedTime(path).toInstant()));
+        } catch (final NoSuchFileException _) {
+            return Optional.empty();
+        }
+    }
+
+    private Path file(final String key) {
+        return options.directory().resolve(key + ".out");
+    }
+
+    private static Optional<Integer> readExitCode(final Path file) {
+        try (BufferedReader reader = Files.newBufferedReader(file, UTF_8)) {
+            final String header = reader.readLine();
+            return header != null && header.startsWith(HEADER)
+                    ? Optional.of(Integer.parseInt(header.substring(HEADER.length()).trim()))
+                    : Optional.empty();
+        } catch (final IOException | NumberFormatException _) {
+            return Optional.empty();
+        }
+    }
+
+    private static void touch(final Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.from(Instant.now()));
+        } catch (final IOException _) {
+            /* Only affects the eviction order */
+        }
+    }
+
+    private static void move(final Path source, final Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (final AtomicMoveNotSupportedException _) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void update(final MessageDigest digest, final String name, final String value) {
+        digest.update((name + '\0' + value + '\0').getBytes(UTF_8));
+    }
+
+    private static void updateWithContent(final MessageDigest digest, final Path path) {
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> files = Files.walk(path)) {
+                for (final Path file : files.filter(Files::isRegularFile).sorted().toList()) {
+                    update(digest, "file", path.relativize(file).toString());
+                    updateWithContent(digest, file);
+                }
+            } catch (final IOException e) {
+                throw new UncheckedIOException("Failed to list the command input " + path, e);
+            }
+            return;
+        }
+
+        if (!Files.isRegularFile(path)) {
+            update(digest, "content", "<missing>");
+            return;
+        }
+
+        try (InputStream input = Files.newInputStream(path)) {
+            final byte[] buffer = new byte[8192];
+            for (int read; (read = input.read(buffer)) != -1; ) {
+                digest.update(buffer, 0, read);
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to read the command input " + path, e);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private record CachedFile(Path path, long size, Instant lastUsed) {}
+
+    private record CachedOutput(Path file) implements ShellOutput {
+
+        @Override
+        public Stream<String> lines() {
+            try {
+                return Files.lines(file, UTF_8).skip(1);
+            } catch (final IOException e) {
+                throw new UncheckedIOException("Failed to read the cached command output", e);
+            }
+        }
+    }
+
+    private static final String HEADER = "sw-cache-v1 ";
+
+    /* Variables that change from one shell to another without affecting the commands */
+    private static final Set<String> VOLATILE_VARIABLES = Set.of("_", "OLDPWD", "SHLVL");
+}
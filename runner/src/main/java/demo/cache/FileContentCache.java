@@ -0,0 +1,141 @@
+package demo.cache;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/* A file modified shortly before it was read is not kept, as a change made within the resolution of the modified
+   time would go unnoticed */
+public final class FileContentCache {
+
+    private final long maxSize;
+    private final Map<Path, Cached> files = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private long size;
+
+    private FileContentCache(final long maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("The file cache max size cannot be negative");
+        }
+        this.maxSize = maxSize;
+    }
+
+    public static FileContentCache create(final long maxSize) {
+        return new FileContentCache(maxSize);
+    }
+
+    public Optional<List<String>> lines(final Path file) {
+        final Path key = file.toAbsolutePath().normalize();
+        try {
+            final Instant readAt = Instant.now();
+            final BasicFileAttributes attributes = Files.readAttributes(key, BasicFileAttributes.class);
+            if (attributes.size() > maxSize / MAX_FILE_FRACTION) {
+                return Optional.empty();
+            }
+
+            final Optional<Cached> cached = find(key, attributes);
+            if (cached.isPresent()) {
+                hits.incrementAndGet();
+                return Optional.of(cached.get().lines());
+            }
+
+            misses.incrementAndGet();
+            final List<String> lines = List.copyOf(Files.readAllLines(key, UTF_8));
+            if (attributes.lastModifiedTime().toInstant().isBefore(readAt.minus(MODIFIED_TIME_RESOLUTION))) {
+                store(key, new Cached(lines, attributes.size(), attributes.lastModifiedTime(), attributes.fileKey(),
+                        weight(lines)));
+            }
+            return Optional.of(lines);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to read file " + file, e);
+        }
+    }
+
+    public long hits() {
+        return hits.get();
+    }
+
+    public long misses() {
+        return misses.get();
+    }
+
+    /* The share of the lookups served from memory, from 0 to 1 */
+    public double hitRate() {
+        final long lookups = hits() + misses();
+        return lookups == 0 ? 0 : (double) hits() / lookups;
+    }
+
+    public synchronized long size() {
+        return size;
+    }
+
+    private synchronized Optional<Cached> find(final Path file, final BasicFileAttributes attributes) {
+        final Cached cached = files.get(file);
+        if (cached == null) {
+            return Optional.empty();
+        }
+
+        if (!cached.isOf(attributes)) {
+            files.remove(file);
+            size -= cached.weight();
+            return Optional.empty();
+        }
+
+        return Optional.of(cached);
+    }
+
+    private synchronized void store(final Path file, final Cached cached) {
+        final Cached previous = files.put(file, cached);
+        if (previous != null) {
+            size -= previous.weight();
+        }
+        size += cached.weight();
+
+        /* The least recently used first */
+        for (Iterator<Cached> iterator = files.values().iterator(); size > maxSize && iterator.hasNext(); ) {
+            size -= iterator.next().weight();
+            iterator.remove();
+        }
+    }
+
+    /* Two bytes per character, as the lines may not be Latin-1, and the overhead of each string */
+    private static long weight(final List<String> lines) {
+        long weight = 0;
+        for (final String line : lines) {
+            weight += STRING_OVERHEAD + 2L * line.length();
+        }
+        return weight;
+    }
+
+    private record Cached(List<String> lines, long size, FileTime modified, Object fileKey, long weight) {
+
+        private boolean isOf(final BasicFileAttributes attributes) {
+            return size == attributes.size()
+                    && modified.equals(attributes.lastModifiedTime())
+                    && Objects.equals(fileKey, attributes.fileKey());
+        }
+    }
+
+    public static final long DEFAULT_MAX_SIZE = 32L * 1024 * 1024;
+
+    private static final int MAX_FILE_FRACTION = 4;
+    private static final long STRING_OVERHEAD = 48;
+
+    /* The coarsest resolution of the modified time among the common file systems, such as FAT */
+    private static final Duration MODIFIED_TIME_RESOLUTION = Duration.ofSeconds(2);
+}
@@ -1,13 +1,31 @@
 package demo.cli;
 
+import demo.cache.CacheOptions;
+import demo.cache.FileContentCache;
+import demo.domain.RunOptions;
+import demo.json.DurationDeserializer;
+import demo.shell.CapturedOutput;
+import demo.shell.ProcessReaper;
+import demo.shell.ShellMode;
 import org.apache.commons.cli.*;
 import org.apache.commons.cli.help.HelpFormatter;
+import org.apache.commons.cli.help.TextHelpAppendable;
 
 import java.io.IOException;
+import java.io.PrintStream;
 import java.io.UncheckedIOException;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
 
-public record CommandLineArguments(boolean showHelp, Path playbook, Path output) {
+public record CommandLineArguments(boolean showHelp, Path playbook, Path output, ShellMode shellMode,
+                                   long outputBufferSize, long fileCacheSize, CacheOptions.Mode cacheMode,
+                                   boolean journal, boolean resume,
+                                   boolean progress, Duration killGracePeriod, boolean writeTimings,
+                                   boolean watch, List<String> batch, int parallelism, boolean daemon,
+                                   boolean client, Path socket, boolean compile, boolean check,
+                                   boolean skipCheck) {
 
     public static CommandLineArguments parse(final String[] args) {
         try {
@@ -19,16 +37,62 @@ public record CommandLineArguments(boolean showHelp, Path playbook, Path output)
             final boolean showHelp = parseHelp(commandLine);
             final Path playbook = parsePlaybook(commandLine);
             final Path output = parseOutput(commandLine);
+            final ShellMode shellMode = parseShellMode(commandLine);
+            final long outputBufferSize = parseOutputBufferSize(commandLine);
+            final long fileCacheSize = parseFileCacheSize(commandLine);
+            final CacheOptions.Mode cacheMode = parseCacheMode(commandLine);
+            final boolean journal = parseJournal(commandLine);
+            final boolean resume = parseResume(commandLine);
+            final boolean progress = parseProgress(commandLine);
+            final Duration killGracePeriod = parseKillGracePeriod(commandLine);
+            final boolean writeTimings = parseWriteTimings(commandLine);
+            final boolean watch = parseWatch(commandLine);
+            final List<String> batch = parseBatch(commandLine);
+            final int parallelism = parseParallelism(commandLine);
+            final boolean daemon = parseDaemon(commandLine);
+            final boolean client = parseClient(commandLine);
+            final Path socket = parseSocket(commandLine);
+            final boolean compile = parseCompile(commandLine);
+            final boolean check = parseCheck(commandLine);
+            final boolean skipCheck = parseSkipCheck(commandLine);
 
-            return new CommandLineArguments(showHelp, playbook, output);
+            return new CommandLineArguments(showHelp, playbook, output, shellMode, outputBufferSize, fileCacheSize,
+                    cacheMode, journal, resume, progress, killGracePeriod, writeTimings, watch,
+                    batch, parallelism, daemon, client, socket, compile, check, skipCheck);
         } catch (final ParseException e) {
             throw new RuntimeException("Failed to parse the command line arguments", e);
         }
     }
 
-    public void printHelp() {
+    public RunOptions runOptions() {
+        return runOptions(output);
+    }
+
+    public RunOptions runOptions(final Path output) {
+        return new RunOptions(shellMode, outputBufferSize, CacheOptions.defaults().withMode(cacheMode),
+                journal(output), resume, progress, killGracePeriod, fileCacheSize, Path.of(""));
+    }
+
+    /* The journal is kept next to the output, as it records how that output was produced */
+    private Optional<Path> journal(final Path output) {
+        return journal || resume
+                ? Optional.of(journalFile(output))
+                : Optional.empty();
+    }
+
+    private static Path journalFile(final Path output) {
+        return output.resolveSibling(output.getFileName() + ".sw-journal");
+    }
+
+    public Path timings() {
+        return output.resolveSibling(output.getFileName() + ".timings.json");
+    }
+
+    public void printHelp(final PrintStream console) {
         try {
-            final HelpFormatter formatter = HelpFormatter.builder().get();
+            final HelpFormatter formatter = HelpFormatter.builder()
+                    .setHelpAppendable(new TextHelpAppendable(console))
+                    .get();
             formatter.printHelp("sw", "Sociable Weaver", options(), "", false);
         } catch (final IOException e) {
             throw new UncheckedIOException("Failed to print the help message", e);
@@ -51,11 +115,146 @@ public record CommandLineArguments(boolean showHelp, Path playbook, Path output)
                 : Path.of("README.md");
     }
 
+    private static ShellMode parseShellMode(final CommandLine commandLine) throws ParseException {
+        return commandLine.hasOption(SHELL_OPTION)
+                ? commandLine.getParsedOptionValue(SHELL_OPTION)
+                : ShellMode.SCRIPT_FILE;
+    }
+
+    private static long parseOutputBufferSize(final CommandLine commandLine) throws ParseException {
+        return commandLine.hasOption(OUTPUT_BUFFER_SIZE_OPTION)
+                ? commandLine.<Long>getParsedOptionValue(OUTPUT_BUFFER_SIZE_OPTION)
+                : CapturedOutput.DEFAULT_SPILL_THRESHOLD;
+    }
+
+    private static long parseFileCacheSize(final CommandLine commandLine) throws ParseException {
+        return commandLine.hasOption(FILE_CACHE_SIZE_OPTION)
+                ? commandLine.<Long>getParsedOptionValue(FILE_CACHE_SIZE_OPTION)
+                : FileContentCache.DEFAULT_MAX_SIZE;
+    }
+
+    private static CacheOptions.Mode parseCacheMode(final CommandLine commandLine) {
+        if (commandLine.hasOption(NO_CACHE_OPTION)) {
+            return CacheOptions.Mode.DISABLED;
+        }
+
+        return commandLine.hasOption(REFRESH_OPTION)
+                ? CacheOptions.Mode.REFRESH
+                : CacheOptions.Mode.ENABLED;
+    }
+
+    private static boolean parseJournal(final CommandLine commandLine) {
+        return commandLine.hasOption(JOURNAL_OPTION);
+    }
+
+    private static boolean parseResume(final CommandLine commandLine) {
+        return commandLine.hasOption(RESUME_OPTION);
+    }
+
+    private static boolean parseProgress(final CommandLine commandLine) {
+        return commandLine.hasOption(PROGRESS_OPTION);
+    }
+
+    private static Duration parseKillGracePeriod(final CommandLine commandLine) throws ParseException {
+        return commandLine.hasOption(KILL_GRACE_PERIOD_OPTION)
+                ? commandLine.getParsedOptionValue(KILL_GRACE_PERIOD_OPTION)
+                : ProcessReaper.DEFAULT_GRACE_PERIOD;
+    }
+
+    private static boolean parseWriteTimings(final CommandLine commandLine) {
+        return commandLine.hasOption(TIMINGS_OPTION);
+    }
+
+    private static boolean parseWatch(final CommandLine commandLine) {
+        return commandLine.hasOption(WATCH_OPTION);
+    }
+
+    private static List<String> parseBatch(final CommandLine commandLine) {
+        return commandLine.hasOption(BATCH_OPTION)
+                ? List.of(commandLine.getOptionValues(BATCH_OPTION))
+                : List.of();
+    }
+
+    private static int parseParallelism(final CommandLine commandLine) throws ParseException {
+        return commandLine.hasOption(PARALLELISM_OPTION)
+                ? commandLine.<Integer>getParsedOptionValue(PARALLELISM_OPTION)
+                : Runtime.getRuntime().availableProcessors();
+    }
+
+    private static boolean parseDaemon(final CommandLine commandLine) {
+        return commandLine.hasOption(DAEMON_OPTION);
+    }
+
+    private static boolean parseClient(final CommandLine commandLine) {
+        return commandLine.hasOption(CLIENT_OPTION);
+    }
+
+    private static Path parseSocket(final CommandLine commandLine) throws ParseException {
+        return commandLine.hasOption(SOCKET_OPTION)
+                ? commandLine.getParsedOptionValue(SOCKET_OPTION)
+                : Path.of(".sw-daemon.sock");
+    }
+
+    private static boolean parseCompile(final CommandLine commandLine) {
+        return commandLine.hasOption(COMPILE_OPTION);
+    }
+
+    private static boolean parseCheck(final CommandLine commandLine) {
+        return commandLine.hasOption(CHECK_OPTION);
+    }
+
+    private static boolean parseSkipCheck(final CommandLine commandLine) {
+        return commandLine.hasOption(NO_CHECK_OPTION);
+    }
+
+    private static long parseByteSize(final String value) {
+        final String text = value.trim().toLowerCase();
+        final long multiplier = switch (text.isEmpty() ? ' ' : text.charAt(text.length() - 1)) {
+            case 'k' -> 1024L;
+            case 'm' -> 1024L * 1024;
+            case 'g' -> 1024L * 1024 * 1024;
+            default -> 1L;
+        };
+
+        final String digits = multiplier == 1 ? text : text.substring(0, text.length() - 1);
+        return Long.parseLong(digits.trim()) * multiplier;
+    }
+
+    /* A duration read only in part, such as '5s', would otherwise be zero */
+    private static Duration parseDuration(final String value) {
+        if (!DurationDeserializer.isDuration(value)) {
+            throw new IllegalArgumentException("Unknown duration '" + value + "', expected a duration such as '30 seconds'");
+        }
+        return DurationDeserializer.parseDuration(value);
+    }
+
     private static Options options() {
         final Options options = new Options();
         options.addOption(HELP_OPTION);
         options.addOption(PLAYBOOK_OPTION);
         options.addOption(OUTPUT_OPTION);
+        options.addOption(SHELL_OPTION);
+        options.addOption(OUTPUT_BUFFER_SIZE_OPTION);
+        options.addOption(FILE_CACHE_SIZE_OPTION);
+        options.addOptionGroup(new OptionGroup()
+                .addOption(NO_CACHE_OPTION)
+                .addOption(REFRESH_OPTION));
+        options.addOption(JOURNAL_OPTION);
+        options.addOption(RESUME_OPTION);
+        options.addOption(PROGRESS_OPTION);
+        options.addOption(KILL_GRACE_PERIOD_OPTION);
+        options.addOption(TIMINGS_OPTION);
+        options.addOption(WATCH_OPTION);
+        options.addOption(BATCH_OPTION);
+        options.addOption(PARALLELISM_OPTION);
+        options.addOptionGroup(new OptionGroup()
+                .addOption(DAEMON_OPTION)
+                .addOption(CLIENT_OPTION));
+        options.addOption(SOCKET_OPTION);
+        options.addOption(COMPILE_OPTION);
+        options.addOptionGroup(new OptionGroup()
+                .addOption(CHECK_OPTION)
+                .addOption(NO_CHECK_OPTION));
         return options;
     }
 
@@ -85,4 +284,154 @@ public record CommandLineArguments(boolean showHelp, Path playbook, Path output)
             .converter(Path::of)
             .desc("The path to the Markdown output file, default 'README.md'")
             .get();
+
+    private static final Option SHELL_OPTION = Option.builder()
+            .required(false)
+            .longOpt("shell")
+            .hasArg(true)
+            .numberOfArgs(1)
+            .converter(ShellMode::parse)
+            .desc("How the commands are executed, one of " + ShellMode.optionValues() + ", default 'script-file'."
+                    + " The 'stdin' mode streams each script to a new shell without writing any files, while the"
+                    + " 'persistent' mode runs all commands in one shell, carrying the working directory and the"
+                    + " exported variables over from one command to the next")
+            .get();
+
+    private static final Option OUTPUT_BUFFER_SIZE_OPTION = Option.builder()
+            .required(false)
+            .longOpt("output-buffer-size")
+            .hasArg(true)
+            .numberOfArgs(1)
+            .converter(CommandLineArguments::parseByteSize)
+            .desc("How much of a command's output is kept in memory before it is written to a temporary file,"
+                    + " such as '512k' or '4m', default '1m'")
+            .get();
+
+    private static final Option FILE_CACHE_SIZE_OPTION = Option.builder()
+            .required(false)
+            .longOpt("file-cache-size")
+            .hasArg(true)
+            .numberOfArgs(1)
+            .converter(CommandLineArguments::parseByteSize)
+            .desc("How much memory the lines of the displayed files may take, so that a file displayed more than once"
+                    + " is only read once, such as '8m' or '0' to read the file every time, default '32m'")
+            .get();
+
+    private static final Option NO_CACHE_OPTION = Option.builder()
+            .required(false)
+            .longOpt("no-cache")
+            .desc("Runs all commands without reading or writing the command cache")
+            .get();
+
+    private static final Option REFRESH_OPTION = Option.builder()
+            .required(false)
+            .longOpt("refresh")
+            .desc("Runs all commands and replaces their results in the command cache")
+            .get();
+
+    private static final Option JOURNAL_OPTION = Option.builder()
+            .required(false)
+            .longOpt("journal")
+            .desc("Records the output of each entry in a journal next to the output, so that a later run can resume"
+                    + " from it")
+            .get();
+
+    private static final Option RESUME_OPTION = Option.builder()
+            .required(false)
+            .longOpt("resume")
+            .desc("Replays the output of the entries that did not change since the previous run, as recorded in its"
+                    + " journal, and continues from the first entry that changed or failed.  Implies --journal")
+            .get();
+
+    private static final Option PROGRESS_OPTION = Option.builder()
+            .required(false)
+            .longOpt("progress")
+            .desc("Prints the output of the commands while they run, together with the entry being run and how long"
+                    + " the command has been running for")
+            .get();
+
+    private static final Option KILL_GRACE_PERIOD_OPTION = Option.builder()
+            .required(false)
+            .longOpt("kill-grace-period")
+            .hasArg(true)
+            .numberOfArgs(1)
+            .converter(CommandLineArguments::parseDuration)
+            .desc("How long the processes of a command that ran out of time are given to terminate before they are"
+                    + " killed, such as '30 seconds', default '5 seconds'")
+            .get();
+
+    private static final Option TIMINGS_OPTION = Option.builder()
+            .required(false)
+            .longOpt("timings")
+            .desc("Writes how long each entry took to a JSON file next to the output, such as 'README.md.timings.json'")
+            .get();
+
+    private static final Option WATCH_OPTION = Option.builder()
+            .required(false)
+            .longOpt("watch")
+            .desc("Keeps running and renders the output again whenever the playbook, or a file it displays, changes."
+                    + " Only the entries that changed are run again, the output of the others is reused")
+            .get();
+
+    private static final Option BATCH_OPTION = Option.builder()
+            .required(false)
+            .longOpt("batch")
+            .hasArgs()
+            .desc("Runs all the given playbooks, or the playbooks matching the given globs such as"
+                    + " 'repos/*/sw-playbook.json', in one process. The output of each playbook is written to the"
+                    + " output path resolved against the directory of the playbook, which cannot be absolute")
+            .get();
+
+    private static final Option PARALLELISM_OPTION = Option.builder()
+            .required(false)
+            .longOpt("parallelism")
+            .hasArg(true)
+            .numberOfArgs(1)
+            .converter(Integer::parseInt)
+            .desc("How many playbooks are run at the same time in batch mode, or how many requests the daemon runs at"
+                    + " the same time, default the number of processors")
+            .get();
+
+    private static final Option DAEMON_OPTION = Option.builder()
+            .required(false)
+            .longOpt("daemon")
+            .desc("Keeps running and serves the requests of the clients started with '--client' from the current"
+                    + " directory, keeping the parsed playbooks in memory from one request to the next")
+            .get();
+
+    private static final Option CLIENT_OPTION = Option.builder()
+            .required(false)
+            .longOpt("client")
+            .desc("Forwards the other arguments to the daemon running in the current directory and prints its output")
+            .get();
+
+    private static final Option SOCKET_OPTION = Option.builder()
+            .required(false)
+            .longOpt("socket")
+            .hasArg(true)
+            .numberOfArgs(1)
+            .converter(Path::of)
+            .desc("The Unix domain socket the daemon listens on and the client connects to, default '.sw-daemon.sock'")
+            .get();
+
+    private static final Option COMPILE_OPTION = Option.builder()
+            .required(false)
+            .longOpt("compile")
+            .desc("Compiles the playbook into a binary format next to it, such as 'sw-playbook.json.smile', which is"
+                    + " loaded instead of the playbook until the playbook changes")
+            .get();
+
+    private static final Option CHECK_OPTION = Option.builder()
+            .required(false)
+            .longOpt("check")
+            .desc("Checks the playbook without running it, and reports every problem found, such as a file to display"
+                    + " that does not exist, together with where it is in the playbook")
+            .get();
+
+    private static final Option NO_CHECK_OPTION = Option.builder()
+            .required(false)
+            .longOpt("no-check")
+            .desc("Runs the playbook without checking it first, starting with the first entries while the rest of the"
+                    + " playbook is still being read")
+            .get();
 }
@@ -0,0 +1,107 @@
+package demo.domain;
+
+import com.fasterxml.jackson.annotation.JsonTypeName;
+import demo.shell.BackgroundProcess;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static java.util.Objects.requireNonNull;
+
+/* Stopped by the finally block of the entry, so after the finally blocks of the entries that came after it, which
+   may still need it */
+@JsonTypeName("Background")
+public record Background(String name,
+                         List<String> commands,
+                         Optional<Path> workingDir,
+                         Optional<String> readyWhen,
+                         Optional<Duration> shouldBeReadyWithin) implements Entry {
+
+    public Background {
+        requireNonNull(name);
+        commands = List.copyOf(commands);
+        requireNonNull(workingDir);
+        requireNonNull(readyWhen);
+        requireNonNull(shouldBeReadyWithin);
+
+        if (name.isBlank()) {
+            throw new IllegalArgumentException("The background process needs a name");
+        }
+
+        /* Fails with an IllegalArgumentException when the pattern is not valid */
+        readyWhen.ifPresent(Pattern::compile);
+    }
+
+    @Override
+    public Result run() {
+        throw new IllegalStateException("The background process " + name + " is started by the playbook running it");
+    }
+
+    @Override
+    public Result run(final RunContext context) {
+        return Result.collect(sink -> run(context, sink));
+    }
+
+    @Override
+    public Result run(final RunContext context, final Appendable sink) {
+        final IndentedWriter writer = new IndentedWriter(sink, OptionalInt.empty())
+                .lines("```shell")
+                .lines("# Keeps running in the background as '" + name + "'")
+                .lines(commandsToShow())
+                .lines("```");
+
+        final BackgroundProcess process;
+        try {
+            process = context.background().start(name, String.join("\n", commands), workingDir);
+        } catch (final IllegalStateException e) {
+            writer.lines("", "_Unexpected Outcome_ (" + e.getMessage() + ")");
+            return Result.streamed(false);
+        }
+        context.putState(this, process);
+
+        if (readyWhen.isEmpty()) {
+            return Result.streamed(true);
+        }
+
+        final Duration timeout = shouldBeReadyWithinOrDefault();
+        if (process.awaitLine(Pattern.compile(readyWhen.get()), timeout)) {
+            return Result.streamed(true);
+        }
+
+        writer.lines("", "_Unexpected Outcome_ (The background process " + name + " did not write a line matching '"
+                + readyWhen.get() + "' within " + timeout.toSeconds() + " seconds)", "", "```");
+        try (Stream<String> lines = process.unshownLines()) {
+            writer.lines(lines);
+        }
+        writer.lines("```");
+        return Result.streamed(false);
+    }
+
+    @Override
+    public void runFinally(final RunContext context) {
+        context.state(this, BackgroundProcess.class)
+                .ifPresent(context.background()::stop);
+    }
+
+    private Stream<String> commandsToShow() {
+        return workingDir
+                .map(path -> Stream.of(Stream.of("(cd '" + path + '\'',
+                                "# Running commands from within the '" + path + "' directory"),
+                        commands.stream(),
+                        Stream.of(")"))
+                        .flatMap(Function.identity()))
+                .orElseGet(commands::stream);
+    }
+
+    private Duration shouldBeReadyWithinOrDefault() {
+        return shouldBeReadyWithin.orElse(DEFAULT_TIMEOUT);
+    }
+
+    private static final Duration DEFAULT_TIMEOUT = Duration.ofMinutes(1);
+}
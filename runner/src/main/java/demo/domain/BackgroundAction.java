@@ -0,0 +1,118 @@
+package demo.domain;
+
+import com.fasterxml.jackson.annotation.JsonTypeName;
+import demo.shell.BackgroundProcess;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static java.util.Objects.requireNonNull;
+
+/* The output of a stopped process is not shown unless asked for, as it is mostly about shutting down */
+@JsonTypeName("BackgroundAction")
+public record BackgroundAction(String name,
+                               Action action,
+                               Optional<String> until,
+                               Optional<Duration> shouldFinishWithin,
+                               Optional<Boolean> showOutput) implements Entry {
+
+    public BackgroundAction {
+        requireNonNull(name);
+        requireNonNull(action);
+        requireNonNull(until);
+        requireNonNull(shouldFinishWithin);
+        requireNonNull(showOutput);
+
+        if (until.isPresent() && action != Action.OUTPUT) {
+            throw new IllegalArgumentException("Only the output of a background process is shown until a line");
+        }
+
+        /* Fails with an IllegalArgumentException when the pattern is not valid */
+        until.ifPresent(Pattern::compile);
+    }
+
+    @Override
+    public Result run() {
+        throw new IllegalStateException("The background process " + name + " is run by the playbook that started it");
+    }
+
+    @Override
+    public Result run(final RunContext context) {
+        return Result.collect(sink -> run(context, sink));
+    }
+
+    @Override
+    public Result run(final RunContext context, final Appendable sink) {
+        final IndentedWriter writer = new IndentedWriter(sink, OptionalInt.empty());
+
+        final Optional<BackgroundProcess> found = context.background().find(name);
+        if (found.isEmpty()) {
+            writer.lines("_Unexpected Outcome_ (No background process named '" + name + "' is running)");
+            return Result.streamed(false);
+        }
+
+        final BackgroundProcess process = found.get();
+        final Optional<String> failure = switch (action) {
+            case OUTPUT -> until
+                    .filter(line -> !process.awaitLine(Pattern.compile(line), shouldFinishWithinOrDefault()))
+                    .map(line -> "The background process " + name + " did not write a line matching '" + line
+                            + "' within " + shouldFinishWithinOrDefault().toSeconds() + " seconds");
+            case WAIT -> {
+                final OptionalInt exitCode = process.awaitExit(shouldFinishWithinOrDefault());
+                if (exitCode.isEmpty()) {
+                    yield Optional.of("The background process " + name + " did not exit within "
+                            + shouldFinishWithinOrDefault().toSeconds() + " seconds");
+                }
+                yield exitCode.getAsInt() == 0
+                        ? Optional.empty()
+                        : Optional.of("Background process " + name + " exit code: " + exitCode.getAsInt());
+            }
+            case STOP -> {
+                context.background().stop(name);
+                yield Optional.empty();
+            }
+        };
+
+        if (failure.isPresent()) {
+            writer.lines("_Unexpected Outcome_ (" + failure.get() + ")", "", "```");
+            writeOutput(writer, process);
+            writer.lines("```");
+            return Result.streamed(false);
+        }
+
+        if (showOutputOrDefault()) {
+            writer.lines("_Output_", "", "```");
+            writeOutput(writer, process);
+            writer.lines("```");
+        } else {
+            /* The lines are not shown the next time either */
+            process.unshownLines().close();
+        }
+        return Result.streamed(true);
+    }
+
+    private static void writeOutput(final IndentedWriter writer, final BackgroundProcess process) {
+        try (Stream<String> lines = process.unshownLines()) {
+            writer.lines(lines);
+        }
+    }
+
+    private boolean showOutputOrDefault() {
+        return showOutput.orElse(action != Action.STOP);
+    }
+
+    private Duration shouldFinishWithinOrDefault() {
+        return shouldFinishWithin.orElse(DEFAULT_TIMEOUT);
+    }
+
+    public enum Action {
+        OUTPUT,
+        WAIT,
+        STOP
+    }
+
+    private static final Duration DEFAULT_TIMEOUT = Duration.ofMinutes(1);
+}
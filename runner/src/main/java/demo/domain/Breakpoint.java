@@ -2,12 +2,9 @@ package demo.domain;
 
 import com.fasterxml.jackson.annotation.JsonTypeName;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.function.Function;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.OptionalInt;
 
 @JsonTypeName("Breakpoint")
 public record Breakpoint(Optional<List<String>> comments) implements Entry {
@@ -18,17 +15,22 @@ public record Breakpoint(Optional<List<String>> comments) implements Entry {
 
     @Override
     public Result run() {
-        final List<Stream<String>> streams = new ArrayList<>(3);
-        streams.add(Stream.of("---", "", "# Breakpoint!"));
-
-        comments.ifPresent(c -> {
-            streams.add(Stream.of(""));
-            streams.add(c.stream());
-        });
-
-        return Result.error(streams.stream()
-                .flatMap(Function.identity())
-                .map(line -> line + '\n')
-                .collect(Collectors.joining()));
+        return Result.collect(this::write);
+    }
+
+    @Override
+    public Result run(final RunContext context, final Appendable sink) {
+        return write(sink);
+    }
+
+    private Result write(final Appendable sink) {
+        final IndentedWriter writer = new IndentedWriter(sink, OptionalInt.empty())
+                .lines("---", "", "# Breakpoint!");
+
+        comments.ifPresent(c -> writer
+                .lines("")
+                .lines(c));
+
+        return Result.streamed(false);
     }
 }
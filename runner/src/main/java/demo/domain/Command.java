@@ -2,16 +2,14 @@ package demo.domain;
 
 import com.fasterxml.jackson.annotation.JsonTypeName;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import demo.cache.CommandCache;
 import demo.json.OptionalListOfStringDeserializer;
+import demo.shell.OutputLimit;
+import demo.shell.ShellMode;
+import demo.shell.ShellScriptResult;
 
-import java.io.File;
-import java.io.IOException;
-import java.io.UncheckedIOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -20,7 +18,6 @@ import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Objects.requireNonNull;
 
 @JsonTypeName("Command")
@@ -33,48 +30,86 @@ public record Command(List<String> commands,
                       Optional<CommandOutput> output,
                       Optional<List<String>> tags,
                       Optional<List<String>> comments,
-                      OptionalInt indent) implements Entry {
+                      OptionalInt indent,
+                      Optional<List<Path>> inputs) implements Entry {
+
+    public Command {
+        inputs = inputs.map(List::copyOf);
+    }
+
+    public Command(final List<String> commands,
+                   final Optional<Duration> shouldFinishWithin,
+                   final Optional<Boolean> shouldFail,
+                   final Optional<List<String>> onFailureCommands,
+                   final Optional<List<String>> finallyCommands,
+                   final Optional<Path> workingDir,
+                   final Optional<CommandOutput> output,
+                   final Optional<List<String>> tags,
+                   final Optional<List<String>> comments,
+                   final OptionalInt indent) {
+        this(commands, shouldFinishWithin, shouldFail, onFailureCommands, finallyCommands, workingDir, output, tags,
+                comments, indent, Optional.empty());
+    }
 
     @Override
     public Result run() {
-        final List<Stream<String>> streams = new ArrayList<>(7);
-        streams.add(Stream.of("```shell"));
-        streams.add(formatCommandsToRunAsStream(this.commands()));
-        streams.add(Stream.of("```"));
+        try (RunContext context = RunContext.create(RunOptions.defaults())) {
+            return run(context);
+        }
+    }
 
-        boolean error = false;
-        if (!skipCommandExecution()) {
-            final ShellScriptResult shellScriptResult = runCommands();
+    @Override
+    public Result run(final RunContext context) {
+        return Result.collect(sink -> run(context, sink));
+    }
 
-            if (shellScriptResult.hasFailed()) {
-                runOnFailureCommands();
-            }
+    @Override
+    public Result run(final RunContext context, final Appendable sink) {
+        final IndentedWriter writer = new IndentedWriter(sink, indent)
+                .lines("```shell")
+                .lines(formatCommandsToRunAsStream(this.commands()))
+                .lines("```");
+
+        if (skipCommandExecution()) {
+            return Result.streamed(true);
+        }
 
+        try (ShellScriptResult shellScriptResult = runOrReplayCommands(context)) {
             if (shellScriptResult.hasFailed() != shouldFailOrDefault()) {
-                streams.add(Stream.of("", "_Unexpected Outcome_ (Command exit code: " + shellScriptResult.exitCode() + ")", "", "```"));
-                streams.add(shellScriptResult.readOutput());
-                streams.add(Stream.of("```"));
-                error = true;
-            } else {
-                shouldPrintOutput(shellScriptResult).ifPresent(header -> {
-                    streams.add(Stream.of(""));
-                    streams.add(header.stream());
-                    streams.add(Stream.of("", "```" + outputOrDefault().contentTypeOrDefault()));
-                    streams.add(shellScriptResult.readOutput());
-                    streams.add(Stream.of("```"));
-                });
+                writer.lines("", "_Unexpected Outcome_ (Command exit code: " + shellScriptResult.exitCode() + ")", "", "```");
+                writeOutput(context, writer, shellScriptResult);
+                writer.lines("```");
+                return Result.streamed(false);
             }
+
+            shouldPrintOutput(shellScriptResult).ifPresent(header -> {
+                writer.lines("")
+                        .lines(header)
+                        .lines("", "```" + outputOrDefault().contentTypeOrDefault());
+                writeOutput(context, writer, shellScriptResult);
+                writer.lines("```");
+            });
+
+            return Result.streamed(true);
         }
+    }
 
-        final String output = streams.stream()
-                .flatMap(Function.identity())
-                .map(line -> line.concat("\n"))
-                .map(indentLines())
-                .collect(Collectors.joining());
+    @Override
+    public List<Path> dependencies(final Path directory) {
+        final Path commandDirectory = directory.resolve(workingDir.orElse(Path.of("")));
+        return inputs.orElse(List.of()).stream()
+                .map(commandDirectory::resolve)
+                .toList();
+    }
 
-        return error
-                ? Result.error(output)
-                : Result.ok(output);
+    private static void writeOutput(final RunContext context,
+                                    final IndentedWriter writer,
+                                    final ShellScriptResult shellScriptResult) {
+        final long started = System.nanoTime();
+        try (Stream<String> lines = shellScriptResult.readOutput()) {
+            writer.lines(lines);
+        }
+        context.timer().outputRead(Duration.ofNanos(System.nanoTime() - started));
     }
 
     private boolean skipCommandExecution() {
@@ -84,54 +119,55 @@ public record Command(List<String> commands,
 
     @Override
     public void runFinally() {
-        finallyCommandsFailureCommandsAsShellScript().ifPresent(commands -> {
-            final Path script = writeShellScriptToFile(commands);
-            runShellScript(script, DEFAULT_TIMEOUT);
-        });
+        try (RunContext context = RunContext.create(RunOptions.defaults())) {
+            runFinally(context);
+        }
     }
 
-    private String commandsAsShellScript() {
-        final String header = """
-                #!/bin/sh
-                
-                # Generated by the Sociable Weaver application
-                # This file is automatically deleted once the execution completes
-                
-                set -e
-                
-                """;
+    @Override
+    public void runFinally(final RunContext context) {
+        scripts(context).finallyCommands()
+                .map(commands -> context.shell().run(commands, DEFAULT_TIMEOUT))
+                .map(result -> reportTimings(context, result))
+                .ifPresent(ShellScriptResult::close);
+    }
+
+    Scripts scripts(final ShellMode mode) {
+        return new Scripts(commandsAsShellScript(mode), onFailureCommandsAsShellScript(mode),
+                finallyCommandsFailureCommandsAsShellScript(mode));
+    }
 
-        return header + formatCommandsToRun(commands);
+    private Scripts scripts(final RunContext context) {
+        return context.state(this, Scripts.class)
+                .orElseGet(() -> scripts(context.options().shellMode()));
     }
 
-    private Optional<String> onFailureCommandsAsShellScript() {
-        return onFailureCommands.map(commands -> {
-            final String header = """
-                    #!/bin/sh
-                    
-                    # Generated by the Sociable Weaver application
-                    # This file is automatically deleted once the execution completes
-                    # All commands in the script are executed even when a previous command fails as this is intended for clean up
-                    
-                    """;
-
-            return header + formatCommandsToRun(commands);
-        });
+    private String commandsAsShellScript(final ShellMode mode) {
+        return header(mode) + "set -e\n\n" + formatCommandsToRun(commands);
     }
 
-    private Optional<String> finallyCommandsFailureCommandsAsShellScript() {
-        return finallyCommands.map(commands -> {
-            final String header = """
-                    #!/bin/sh
-                    
-                    # Generated by the Sociable Weaver application
-                    # This file is automatically deleted once the execution completes
-                    # All commands in the script are executed even when a previous command fails as this is intended for clean up
-                    
-                    """;
-
-            return header + formatCommandsToRun(commands);
-        });
+    private Optional<String> onFailureCommandsAsShellScript(final ShellMode mode) {
+        return onFailureCommands.map(commands -> header(mode, CLEAN_UP_COMMENT) + formatCommandsToRun(commands));
+    }
+
+    private Optional<String> finallyCommandsFailureCommandsAsShellScript(final ShellMode mode) {
+        return finallyCommands.map(commands -> header(mode, CLEAN_UP_COMMENT) + formatCommandsToRun(commands));
+    }
+
+    /* Only the script file shell writes the script to a file */
+    private static String header(final ShellMode mode, final String... comments) {
+        final StringBuilder header = new StringBuilder("""
+                #!/bin/sh
+
+                # Generated by the Sociable Weaver application
+                """);
+        if (mode == ShellMode.SCRIPT_FILE) {
+            header.append("# This file is automatically deleted once the execution completes\n");
+        }
+        for (final String comment : comments) {
+            header.append("# ").append(comment).append('\n');
+        }
+        return header.append('\n').toString();
     }
 
     private Optional<List<String>> shouldPrintOutput(final ShellScriptResult shellScriptResult) {
@@ -142,12 +178,6 @@ public record Command(List<String> commands,
         return Optional.empty();
     }
 
-    private Function<String, String> indentLines() {
-        return indent.isEmpty()
-                ? Function.identity()
-                : line -> line.isBlank() ? line : (" ".repeat(indent.getAsInt())).concat(line);
-    }
-
     private String formatCommandsToRun(final List<String> commandsToRun) {
         return formatCommandsToRunAsStream(commandsToRun)
                 .map(line -> line.concat("\n"))
@@ -183,106 +213,82 @@ public record Command(List<String> commands,
         return shouldFinishWithin.orElse(DEFAULT_TIMEOUT);
     }
 
-    private ShellScriptResult runCommands() {
-        final String commands = commandsAsShellScript();
-        final Path script = writeShellScriptToFile(commands);
-        return runShellScript(script, shouldFinishWithinOrDefault());
-    }
-
-    private Optional<ShellScriptResult> runOnFailureCommands() {
-        return onFailureCommandsAsShellScript()
-                .map(Command::writeShellScriptToFile)
-                /* TODO: What should be the timeout of the cleanup commands? */
-                .map(script -> runShellScript(script, Duration.ofMinutes(10)));
-    }
-
-    private static Path writeShellScriptToFile(final String script) {
-        final Path path = findNonExistingFile();
-
-        try {
-            Files.writeString(path, script, UTF_8);
-
-            final File file = path.toFile();
-            file.deleteOnExit();
+    private ShellScriptResult runOrReplayCommands(final RunContext context) {
+        final CommandCache cache = context.cache();
 
-            if (!file.setExecutable(true)) {
-                throw new RuntimeException("Failed to make the script executable");
-            }
-        } catch (final IOException e) {
-            throw new UncheckedIOException("Failed to write script to file", e);
+        /* Only commands declaring their inputs are cached, as replaying a command does not replay its side effects */
+        if (inputs.isEmpty() || !cache.isEnabled()) {
+            return runCommandsAndOnFailureCommands(context);
         }
 
-        return path;
-    }
-
-    private ShellScriptResult runShellScript(final Path script, final Duration timeout) {
-        final Path outputFile = script.toAbsolutePath().getParent().resolve(script.getFileName() + ".out");
-        outputFile.toFile().deleteOnExit();
-
-        try {
-            final Process process = new ProcessBuilder(script.toAbsolutePath().toString())
-                    .redirectOutput(outputFile.toFile())
-                    .redirectErrorStream(true)
-                    .start();
-            final boolean finished = process.waitFor(timeout.toMillis(), java.util.concurrent.TimeUnit.MILLISECONDS);
-            if (!finished) {
-                process.destroyForcibly();
-                process.waitFor();
-                return new ShellScriptResult(-1, outputFile);
-            }
+        final String key = cache.key(scripts(context).commands(), context.options().playbookDirectory(), workingDir,
+                inputs.get());
+        final Optional<ShellScriptResult> cached = cache.find(key);
+        if (cached.isPresent()) {
+            return reportTimings(context, cached.get());
+        }
 
-            final int exitCode = process.exitValue();
-            return new ShellScriptResult(exitCode, outputFile);
-        } catch (final InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new RuntimeException("Interrupted while running the commands", e);
-        } catch (final IOException e) {
-            throw new UncheckedIOException("Failed to run the commands", e);
+        final ShellScriptResult result = runCommandsAndOnFailureCommands(context);
+        if (result.exitCode() >= 0 && result.hasFailed() == shouldFailOrDefault()) {
+            cache.store(key, result);
         }
+        return result;
     }
 
-    private static Path findNonExistingFile() {
-        final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
-        final String prefix = ".sw-command-" + LocalDateTime.now().format(formatter);
-
-        Path path = Path.of(prefix + ".sh");
-        for (int i = 1; Files.isRegularFile(path); i++) {
-            path = Path.of(prefix + '-' + i + ".sh");
+    private ShellScriptResult runCommandsAndOnFailureCommands(final RunContext context) {
+        final ShellScriptResult result = runCommands(context);
+        if (result.hasFailed()) {
+            runOnFailureCommands(context)
+                    .ifPresent(ShellScriptResult::close);
         }
-
-        return path;
+        return result;
     }
 
-    private record ShellScriptResult(int exitCode, Path output) {
-
-        ShellScriptResult {
-            requireNonNull(output);
+    private ShellScriptResult runCommands(final RunContext context) {
+        final Duration timeout = shouldFinishWithinOrDefault();
+        final String first = commands.isEmpty() ? "" : commands.getFirst();
+        try (Progress.CommandProgress progress = context.progress().commandStarted(first, timeout)) {
+            return reportTimings(context, context.shell()
+                    .run(scripts(context).commands(), timeout, progress.output(), outputOrDefault().limit()));
         }
+    }
 
-        public Stream<String> readOutput() {
-            try {
-                return Files.lines(output, UTF_8);
-            } catch (final IOException e) {
-                throw new UncheckedIOException("Failed to read the commands output", e);
-            }
-        }
+    private static ShellScriptResult reportTimings(final RunContext context, final ShellScriptResult result) {
+        context.timer().scriptRan(result.exitCode(), result.timings().spawn(), result.timings().execute());
+        return result;
+    }
 
-        public boolean hasFailed() {
-            return exitCode != 0;
-        }
+    private Optional<ShellScriptResult> runOnFailureCommands(final RunContext context) {
+        return scripts(context).onFailure()
+                /* TODO: What should be the timeout of the cleanup commands? */
+                .map(script -> context.shell().run(script, Duration.ofMinutes(10)));
     }
 
     public record CommandOutput(Optional<Boolean> show,
                                 @JsonDeserialize(using = OptionalListOfStringDeserializer.class)
                                 Optional<List<String>> caption,
-                                Optional<String> contentType) {
+                                Optional<String> contentType,
+                                OptionalInt headLines,
+                                OptionalInt tailLines) {
 
         public CommandOutput {
             requireNonNull(show);
             requireNonNull(caption);
             requireNonNull(contentType);
+            requireNonNull(headLines);
+            requireNonNull(tailLines);
 
             caption = caption.map(List::copyOf);
+
+            if (headLines.orElse(0) < 0 || tailLines.orElse(0) < 0) {
+                throw new IllegalArgumentException("The number of output lines to keep cannot be negative");
+            }
+        }
+
+        public CommandOutput(final Optional<Boolean> show,
+                             final Optional<List<String>> caption,
+                             final Optional<String> contentType) {
+            this(show, caption, contentType, OptionalInt.empty(), OptionalInt.empty());
         }
 
         public boolean showOrDefault() {
@@ -297,13 +303,32 @@ public record Command(List<String> commands,
             return contentType.orElse("");
         }
 
+        /* Setting either of the limits drops the lines in between, a missing limit keeping no lines at that end */
+        public OutputLimit limit() {
+            return headLines.isEmpty() && tailLines.isEmpty()
+                    ? OutputLimit.none()
+                    : new OutputLimit(headLines.orElse(0), tailLines.orElse(0));
+        }
+
         private static final List<String> DEFAULT_CAPTION = List.of("_Output_");
     }
 
+    record Scripts(String commands, Optional<String> onFailure, Optional<String> finallyCommands) {
+
+        Scripts {
+            requireNonNull(commands);
+            requireNonNull(onFailure);
+            requireNonNull(finallyCommands);
+        }
+    }
+
     private static final CommandOutput DEFAULT_COMMAND_OUTPUT = new CommandOutput(
             Optional.of(false),
             Optional.empty(),
             Optional.empty());
 
     private static final Duration DEFAULT_TIMEOUT = Duration.ofMinutes(1);
+
+    private static final String CLEAN_UP_COMMENT = "All commands in the script are executed even when a previous"
+            + " command fails as this is intended for clean up";
 }
@@ -0,0 +1,131 @@
+package demo.domain;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Optional;
+import java.util.UUID;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Objects.requireNonNull;
+
+/* Starts with the modified time and the size of the JSON playbook, and is only loaded while these still match */
+final class CompiledPlaybook {
+
+    private CompiledPlaybook() {}
+
+    static Path path(final Path playbook) {
+        return playbook.resolveSibling(playbook.getFileName() + ".smile");
+    }
+
+    static Path compile(final Path playbook) {
+        requireNonNull(playbook);
+
+        final Path compiled = path(playbook);
+        try {
+            /* Read before the contents, so that a change made while compiling leaves the compiled playbook stale */
+            final BasicFileAttributes source = Files.readAttributes(playbook, BasicFileAttributes.class);
+
+            /* Only valid playbooks are compiled */
+            final JsonNode tree = Document.mapper().readTree(playbook.toFile());
+            Document.mapper().treeToValue(tree, Document.class);
+
+            /* Replaced at once, so that a run reading the compiled playbook never sees it half written */
+            final Path temporary =
+                    compiled.resolveSibling("." + compiled.getFileName() + "." + UUID.randomUUID() + ".tmp");
+            try {
+                try (DataOutputStream output = new DataOutputStream(
+                        new BufferedOutputStream(Files.newOutputStream(temporary, CREATE_NEW, WRITE)))) {
+                    output.writeInt(MAGIC);
+                    output.writeInt(VERSION);
+                    output.writeLong(source.lastModifiedTime().toMillis());
+                    output.writeLong(source.size());
+                    Document.smileMapper().writeValue((OutputStream) output, tree);
+                }
+                move(temporary, compiled);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+            return compiled;
+        } catch (final JsonProcessingException e) {
+            throw new IllegalArgumentException("Failed to parse the JSON object", e);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to compile the Sociable Weaver playbook file: " + playbook, e);
+        }
+    }
+
+    static Optional<JsonParser> open(final Path playbook) {
+        requireNonNull(playbook);
+
+        final Path compiled = path(playbook);
+        if (!Files.isRegularFile(compiled)) {
+            return Optional.empty();
+        }
+
+        try {
+            final BasicFileAttributes source = Files.readAttributes(playbook, BasicFileAttributes.class);
+            final DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(compiled)));
+            boolean fresh = false;
+            try {
+                if (isCompiledFrom(input, source)) {
+                    final JsonParser parser = Document.smileMapper().createParser((InputStream) input);
+                    fresh = true;
+                    return Optional.of(parser);
+                }
+                return Optional.empty();
+            } finally {
+                /* The parser closes the input once read */
+                if (!fresh) {
+                    input.close();
+                }
+            }
+        } catch (final NoSuchFileException e) {
+            /* The missing JSON playbook is reported as such when parsed */
+            return Optional.empty();
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to read the compiled Sociable Weaver playbook file: " + compiled, e);
+        }
+    }
+
+    private static void move(final Path source, final Path target) throws IOException {
+        try {
+            Files.move(source, target, REPLACE_EXISTING, ATOMIC_MOVE);
+        } catch (final AtomicMoveNotSupportedException e) {
+            Files.move(source, target, REPLACE_EXISTING);
+        }
+    }
+
+    private static boolean isCompiledFrom(final DataInputStream input, final BasicFileAttributes source)
+            throws IOException {
+        try {
+            return input.readInt() == MAGIC
+                    && input.readInt() == VERSION
+                    && input.readLong() == source.lastModifiedTime().toMillis()
+                    && input.readLong() == source.size();
+        } catch (final EOFException e) {
+            return false;
+        }
+    }
+
+    /* "SWPB", followed by the version of the layout, which is increased whenever the layout changes */
+    private static final int MAGIC = 0x53575042;
+    private static final int VERSION = 1;
+}
@@ -0,0 +1,131 @@
+package demo.domain;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+public final class ConsoleProgress implements Progress {
+
+    private final PrintStream console;
+    private final Duration statusInterval;
+
+    private int index;
+    private OptionalInt count = OptionalInt.empty();
+    private Optional<String> heading = Optional.empty();
+
+    public ConsoleProgress(final PrintStream console, final Duration statusInterval) {
+        this.console = requireNonNull(console);
+        this.statusInterval = requireNonNull(statusInterval);
+    }
+
+    @Override
+    public synchronized void entryStarted(final int index, final OptionalInt count, final Entry entry) {
+        this.index = index;
+        this.count = count;
+
+        if (entry instanceof Heading h) {
+            heading = Optional.of(h.title());
+        }
+    }
+
+    /* The commands of a parallel entry run at the same time, and are told apart by their first command */
+    @Override
+    public synchronized CommandProgress commandStarted(final String command, final Duration timeout) {
+        final String label = "[" + (index + 1) + (count.isPresent() ? "/" + count.getAsInt() : "") + "]"
+                + heading.map(h -> " " + h).orElse("") + " (" + command + ")";
+        final Instant started = Instant.now();
+        console.println(label + " running, allowed " + format(timeout));
+
+        final Thread status = Thread.ofVirtual()
+                .name("sw-progress")
+                .start(() -> {
+                    try {
+                        while (true) {
+                            Thread.sleep(statusInterval);
+                            console.println(label + " still running, "
+                                    + format(Duration.between(started, Instant.now())) + " of " + format(timeout));
+                        }
+                    } catch (final InterruptedException _) {
+                        /* The command finished */
+                    }
+                });
+
+        final LabelledLines output = new LabelledLines(console, label + " | ");
+        return new CommandProgress() {
+            @Override
+            public OutputStream output() {
+                return output;
+            }
+
+            @Override
+            public void close() {
+                status.interrupt();
+                output.close();
+                console.println(label + " finished in "
+                        + format(Duration.between(started, Instant.now())) + " of " + format(timeout));
+            }
+        };
+    }
+
+    private static String format(final Duration duration) {
+        return duration.toHours() > 0
+                ? "%d:%02d:%02d".formatted(duration.toHours(), duration.toMinutesPart(), duration.toSecondsPart())
+                : "%d:%02d".formatted(duration.toMinutes(), duration.toSecondsPart());
+    }
+
+    /* Prints whole lines only, each in one go, so that the lines of commands running at the same time do not mix */
+    private static final class LabelledLines extends OutputStream {
+
+        private final PrintStream console;
+        private final String prefix;
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+        private LabelledLines(final PrintStream console, final String prefix) {
+            this.console = console;
+            this.prefix = prefix;
+        }
+
+        @Override
+        public synchronized void write(final int b) {
+            if (b == '\n') {
+                printLine();
+            } else {
+                line.write(b);
+            }
+        }
+
+        @Override
+        public synchronized void write(final byte[] bytes, final int offset, final int length) {
+            int start = offset;
+            for (int i = offset; i < offset + length; i++) {
+                if (bytes[i] == '\n') {
+                    line.write(bytes, start, i - start);
+                    printLine();
+                    start = i + 1;
+                }
+            }
+            line.write(bytes, start, offset + length - start);
+        }
+
+        @Override
+        public synchronized void close() {
+            if (line.size() > 0) {
+                printLine();
+            }
+        }
+
+        private void printLine() {
+            console.println(prefix + line.toString(UTF_8));
+            line.reset();
+        }
+    }
+
+    public static final Duration DEFAULT_STATUS_INTERVAL = Duration.ofSeconds(10);
+}
@@ -2,19 +2,12 @@ package demo.domain;
 
 import com.fasterxml.jackson.annotation.JsonTypeName;
 
-import java.io.IOException;
-import java.io.UncheckedIOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.Optional;
 import java.util.OptionalInt;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-import static java.nio.charset.StandardCharsets.UTF_8;
-
 @JsonTypeName("DisplayFile")
 public record DisplayFile(Path path,
                           Optional<String> contentType,
@@ -24,38 +17,53 @@ public record DisplayFile(Path path,
                           OptionalInt indent) implements Entry {
     @Override
     public Result run() {
-        final String contentType = computeContentType();
+        return Result.collect(this::write);
+    }
 
-        try (Stream<Stream<String>> stream = Stream.of(Stream.of("```" + contentType), readLines(), Stream.of("```"))) {
-            return Result.ok(stream.flatMap(Function.identity())
-                    .map(indentLines())
-                    .map(line -> line + '\n')
-                    .collect(Collectors.joining()));
-        }
+    @Override
+    public Result run(final RunContext context, final Appendable sink) {
+        return write(sink, readLines(context));
     }
 
-    private Function<String, String> indentLines() {
-        return indent.isEmpty()
-                ? Function.identity()
-                : line -> line.isBlank() ? line : (" ".repeat(indent.getAsInt())).concat(line);
+    private Result write(final Appendable sink) {
+        return write(sink, readLines(new LineIndex.Indexes(), expandTilde()));
     }
 
-    private Stream<String> readLines() {
-        try {
-            Stream<String> lines = Files.lines(expandTilde(), UTF_8);
+    private Result write(final Appendable sink, final Stream<String> lines) {
+        final IndentedWriter writer = new IndentedWriter(sink, indent)
+                .lines("```" + computeContentType());
 
-            if (fromLine.isPresent()) {
-                lines = lines.skip(fromLine.getAsInt() - 1);
-            }
+        try (lines) {
+            writer.lines(lines);
+        }
 
-            if (numberOfLines.isPresent()) {
-                lines = lines.limit(numberOfLines.getAsInt());
-            }
+        writer.lines("```");
+        return Result.streamed(true);
+    }
 
-            return lines;
-        } catch (IOException e) {
-            throw new UncheckedIOException("Failed to read file " + path, e);
+    @Override
+    public List<Path> dependencies(final Path directory) {
+        return List.of(resolve(directory));
+    }
+
+    /* Kept by the run, as the same file is often shown an excerpt at a time */
+    private Stream<String> readLines(final RunContext context) {
+        final Path file = resolve(context.options().playbookDirectory());
+        return context.files().lines(file)
+                .map(this::window)
+                .orElseGet(() -> readLines(context.lineIndexes(), file));
+    }
+
+    private Stream<String> window(final List<String> lines) {
+        Stream<String> window = lines.stream().skip(fromLine.orElse(1) - 1);
+        if (numberOfLines.isPresent()) {
+            window = window.limit(numberOfLines.getAsInt());
         }
+        return window;
+    }
+
+    private Stream<String> readLines(final LineIndex.Indexes indexes, final Path file) {
+        return LineIndex.lines(indexes, file, fromLine.orElse(1), numberOfLines);
     }
 
     private String computeContentType() {
@@ -81,6 +89,10 @@ public record DisplayFile(Path path,
                 : Optional.of(fileName.substring(index + 1));
     }
 
+    public Path resolve(final Path directory) {
+        return directory.resolve(expandTilde());
+    }
+
     public Path expandTilde() {
         return path.startsWith("~")
                 ? (path.getNameCount() == 1
@@ -1,18 +1,29 @@
 package demo.domain;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.PropertyNamingStrategies;
-import com.fasterxml.jackson.databind.json.JsonMapper;
-import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.fasterxml.jackson.databind.ObjectReader;
 import demo.json.DurationDeserializer;
+import demo.journal.Journal;
+import demo.timing.Timings;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static java.util.Objects.requireNonNull;
 
@@ -22,60 +33,219 @@ public record Document(List<Entry> entries) {
         entries = List.copyOf(entries);
     }
 
+    /* Loads the compiled playbook instead, when the playbook was compiled and did not change since */
     public static Document parse(final Path file) {
+        return parse(file, _ -> {});
+    }
+
+    static Document parse(final Path file, final Consumer<String> unrecognisedDurations) {
         requireNonNull(file);
+        requireNonNull(unrecognisedDurations);
 
-        return parse(readSwPlaybookFromFile(file));
+        final Optional<JsonParser> compiled = CompiledPlaybook.open(file);
+        final ObjectReader reader = (compiled.isEmpty() ? mapper() : smileMapper())
+                .readerFor(Document.class)
+                .withAttribute(DurationDeserializer.UNRECOGNISED, unrecognisedDurations);
+        if (compiled.isEmpty()) {
+            try {
+                return reader.readValue(readSwPlaybookFromFile(file));
+            } catch (final JsonProcessingException e) {
+                throw new IllegalArgumentException("Failed to parse the JSON object", e);
+            }
+        }
+
+        try (JsonParser parser = compiled.get()) {
+            return reader.readValue(parser);
+        } catch (final JsonProcessingException e) {
+            throw new IllegalArgumentException("Failed to parse the compiled playbook", e);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to read the compiled Sociable Weaver playbook file: " + file, e);
+        }
     }
 
     public static Document parse(final String json) {
         requireNonNull(json);
 
         try {
-            return createMapper().
-                    readValue(json, Document.class);
+            return mapper().readValue(json, Document.class);
         } catch (final JsonProcessingException e) {
             throw new IllegalArgumentException("Failed to parse the JSON object", e);
         }
     }
 
+    public static Stream<Entry> stream(final Path file) {
+        final PlaybookReader reader = PlaybookReader.open(file);
+        final Spliterator<Entry> entries =
+                Spliterators.spliteratorUnknownSize(reader, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(entries, false)
+                .onClose(reader::close);
+    }
+
+    public static Stream<Entry> expandIncludes(final Stream<Entry> entries, final Path directory) {
+        return expandIncludes(entries, directory, _ -> {});
+    }
+
+    public static Stream<Entry> expandIncludes(final Stream<Entry> entries,
+                                               final Path directory,
+                                               final Consumer<Path> included) {
+        final Spliterator<Entry> expanded = Spliterators.spliteratorUnknownSize(
+                Include.expand(entries.iterator(), directory, included), Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(expanded, false)
+                .onClose(entries::close);
+    }
+
+    public static Path compile(final Path file) {
+        return CompiledPlaybook.compile(file);
+    }
+
     public void run(final Consumer<String> output) {
-        /* This is used to run the finally blocks in rever order starting from the last processed index */
-        int lastProcessedIndex = -1;
-
-        runLoop:
-        for (int runIndex = 0; runIndex < entries.size(); runIndex++) {
-            lastProcessedIndex = runIndex;
-            final Entry entry = entries.get(lastProcessedIndex);
-            final Result result = entry.run();
-
-            switch (result) {
-                case Result.Ok ok -> output.accept(ok.output());
-                case Result.Error e -> {
-                    output.accept(e.error());
-                    break runLoop;
+        try (RunContext context = RunContext.create(RunOptions.defaults())) {
+            run(context, output);
+        }
+    }
+
+    public void run(final RunContext context, final Consumer<String> output) {
+        requireNonNull(output);
+
+        runEntries(context, (_, result) -> output.accept(switch (result) {
+            case Result.Ok ok -> ok.output();
+            case Result.Error e -> e.error();
+            case Result.Streamed _ -> throw new IllegalStateException("The output of the entry was not collected");
+        }));
+    }
+
+    public void runEntries(final RunContext context, final BiConsumer<Entry, Result> results) {
+        requireNonNull(context);
+        requireNonNull(results);
+
+        final StringBuilder buffer = new StringBuilder();
+        run(context, buffer, (entry, ok) -> {
+            results.accept(entry, ok ? Result.ok(buffer.toString()) : Result.error(buffer.toString()));
+            buffer.setLength(0);
+        });
+    }
+
+    public boolean run(final RunContext context, final Writer output) {
+        requireNonNull(context);
+        requireNonNull(output);
+
+        return run(context, output, newLineAfterEach(output));
+    }
+
+    public static boolean run(final RunContext context, final Iterator<Entry> entries, final Writer output) {
+        requireNonNull(context);
+        requireNonNull(entries);
+        requireNonNull(output);
+
+        return run(context, entries, OptionalInt.empty(), output, newLineAfterEach(output));
+    }
+
+    private boolean run(final RunContext context,
+                        final Appendable sink,
+                        final BiConsumer<Entry, Boolean> entryCompleted) {
+        /* The number of entries is only known up front when the playbook includes no other playbooks */
+        final OptionalInt count = entries.stream().anyMatch(Include.class::isInstance)
+                ? OptionalInt.empty()
+                : OptionalInt.of(entries.size());
+        /* A streamed playbook has its includes expanded by the caller, which knows the directory of the playbook */
+        final Iterator<Entry> expanded =
+                Include.expand(entries.iterator(), context.options().playbookDirectory(), _ -> {});
+        return run(context, expanded, count, sink, entryCompleted);
+    }
+
+    private static boolean run(final RunContext context,
+                               final Iterator<Entry> entries,
+                               final OptionalInt count,
+                               final Appendable sink,
+                               final BiConsumer<Entry, Boolean> entryCompleted) {
+        final Journal journal = context.journal();
+
+        final List<Entry> processed = new ArrayList<>();
+
+        /* Entries replayed from the journal did not run, so their finally blocks are skipped too */
+        int firstExecutedIndex = Integer.MAX_VALUE;
+
+        final List<String> headings = new ArrayList<>();
+        String heading = "";
+        boolean succeeded = true;
+
+        /* A streamed playbook may fail to parse part way, the finally blocks of the processed entries still run */
+        try {
+            for (int runIndex = 0; entries.hasNext(); runIndex++) {
+                final Entry entry = entries.next();
+                processed.add(entry);
+                if (entry instanceof Heading h) {
+                    heading = h.title();
+                }
+                headings.add(heading);
+
+                context.progress().entryStarted(runIndex, count, entry);
+                final List<Path> dependencies = entry.dependencies(context.options().playbookDirectory());
+                /* The process of a background entry is needed by the entries after it, which run again too */
+                final Optional<String> replayed = entry instanceof Background
+                        ? journal.stopReplaying()
+                        : journal.replay(runIndex, entry, dependencies);
+                if (replayed.isPresent()) {
+                    journal.record(runIndex, entry, dependencies, sink)
+                            .append(replayed.get())
+                            .finish(true);
+                    entryCompleted.accept(entry, true);
+                    continue;
+                }
+
+                firstExecutedIndex = Math.min(firstExecutedIndex, runIndex);
+                final Journal.Recording recording = journal.record(runIndex, entry, dependencies, sink);
+                final Result.Streamed result;
+                try (Timings.Measurement measurement =
+                             context.timings().start(runIndex, entry, heading, Timings.Phase.RUN)) {
+                    result = Result.write(entry.run(context.timed(measurement.timer()), recording), recording);
+                }
+                recording.finish(result.ok());
+                entryCompleted.accept(entry, result.ok());
+
+                if (!result.ok()) {
+                    /* A breakpoint is where the author asked the run to stop, which is not a failure */
+                    succeeded = entry instanceof Breakpoint;
+                    break;
                 }
             }
+        } finally {
+            runFinally(context, processed, headings, firstExecutedIndex);
         }
 
-        for (int runFinallyIndex = lastProcessedIndex; runFinallyIndex >= 0; runFinallyIndex--) {
-            entries.get(runFinallyIndex).runFinally();
+        return succeeded;
+    }
+
+    private static void runFinally(final RunContext context,
+                                   final List<Entry> processed,
+                                   final List<String> headings,
+                                   final int firstExecutedIndex) {
+        for (int runFinallyIndex = processed.size() - 1; runFinallyIndex >= firstExecutedIndex; runFinallyIndex--) {
+            final Entry entry = processed.get(runFinallyIndex);
+            try (Timings.Measurement measurement = context.timings()
+                    .start(runFinallyIndex, entry, headings.get(runFinallyIndex), Timings.Phase.FINALLY)) {
+                entry.runFinally(context.timed(measurement.timer()));
+            }
         }
     }
 
-    private static ObjectMapper createMapper() {
-        return JsonMapper.builder()
-                .addModule(new Jdk8Module())
-                .addModule(DurationDeserializer.createModule())
-                .propertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE)
-                .registerSubtypes(
-                        Breakpoint.class,
-                        Command.class,
-                        DisplayFile.class,
-                        Heading.class,
-                        Markdown.class,
-                        Todo.class)
-                .build();
+    private static BiConsumer<Entry, Boolean> newLineAfterEach(final Writer output) {
+        return (_, _) -> {
+            try {
+                output.write('\n');
+                output.flush();
+            } catch (final IOException e) {
+                throw new UncheckedIOException("Failed to write the output", e);
+            }
+        };
+    }
+
+    static ObjectMapper mapper() {
+        return PlaybookMappers.JSON;
+    }
+
+    static ObjectMapper smileMapper() {
+        return PlaybookMappers.SMILE;
     }
 
     private static String readSwPlaybookFromFile(final Path path) {
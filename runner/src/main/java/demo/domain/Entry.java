@@ -2,10 +2,31 @@ package demo.domain;
 
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 
+import java.nio.file.Path;
+import java.util.List;
+
 @JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "type")
 public interface Entry {
 
     Result run();
 
+    default Result run(final RunContext context) {
+        return run();
+    }
+
+    /* Entries with large outputs override this to write their output as it is produced */
+    default Result run(final RunContext context, final Appendable sink) {
+        return Result.write(run(context), sink);
+    }
+
     default void runFinally() {}
+
+    default void runFinally(final RunContext context) {
+        runFinally();
+    }
+
+    /* The files the output depends on, relative to the given directory */
+    default List<Path> dependencies(final Path directory) {
+        return List.of();
+    }
 }
@@ -0,0 +1,104 @@
+package demo.domain;
+
+import com.fasterxml.jackson.annotation.JsonTypeName;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static java.util.Objects.requireNonNull;
+
+/* Never runs as such, it is replaced by the included entries while the entries are read, so that these run as if
+   they were part of the playbook */
+@JsonTypeName("Include")
+public record Include(Path path) implements Entry {
+
+    public Include {
+        requireNonNull(path);
+    }
+
+    @Override
+    public Result run() {
+        throw new IllegalStateException("The entries of " + path + " are run by the playbook including them");
+    }
+
+    static Iterator<Entry> expand(final Iterator<Entry> entries, final Path directory, final Consumer<Path> included) {
+        return new Expanding(requireNonNull(entries), requireNonNull(directory), requireNonNull(included));
+    }
+
+    static Path resolve(final Path path, final Path directory, final Deque<Path> including) {
+        final Path file = directory.resolve(path).toAbsolutePath().normalize();
+        if (including.contains(file)) {
+            final List<Path> cycle = including.reversed().stream()
+                    .dropWhile(included -> !included.equals(file))
+                    .toList();
+            throw new IllegalArgumentException("The playbook " + file + " includes itself: " + cycle.stream()
+                    .map(Path::toString)
+                    .collect(Collectors.joining(" -> ")) + " -> " + file);
+        }
+        return file;
+    }
+
+    private static final class Expanding implements Iterator<Entry> {
+
+        /* The entries of the playbook, followed by those of the playbooks being included, innermost first */
+        private final Deque<Iterator<Entry>> iterators = new ArrayDeque<>();
+        private final Deque<Path> including = new ArrayDeque<>();
+        private final Path directory;
+        private final Consumer<Path> included;
+        private Entry next;
+
+        private Expanding(final Iterator<Entry> entries, final Path directory, final Consumer<Path> included) {
+            iterators.push(entries);
+            this.directory = directory;
+            this.included = included;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && !iterators.isEmpty()) {
+                final Iterator<Entry> current = iterators.peek();
+                if (!current.hasNext()) {
+                    iterators.pop();
+                    if (!including.isEmpty() && iterators.size() == including.size()) {
+                        including.pop();
+                    }
+                    continue;
+                }
+
+                final Entry entry = current.next();
+                if (entry instanceof Include include) {
+                    final Path file = resolve(include.path(), directoryOfCurrent(), including);
+                    included.accept(file);
+                    iterators.push(IncludedPlaybooks.parse(file).entries().iterator());
+                    including.push(file);
+                } else {
+                    next = entry;
+                }
+            }
+            return next != null;
+        }
+
+        private Path directoryOfCurrent() {
+            return including.isEmpty()
+                    ? directory
+                    : including.peek().getParent();
+        }
+
+        @Override
+        public Entry next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("All the entries were read");
+            }
+
+            final Entry entry = next;
+            next = null;
+            return entry;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package demo.domain;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+final class IncludedPlaybooks {
+
+    private IncludedPlaybooks() {}
+
+    /* The path is absolute and normalized, so that the same playbook is parsed once however it is included */
+    static Document parse(final Path file) {
+        try {
+            final BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            final Parsed cached = find(file);
+            if (cached != null && cached.isOf(attributes)) {
+                return cached.document();
+            }
+
+            /* Parsed outside the lock, so that playbooks run at the same time do not wait for each other */
+            final Parsed parsed = new Parsed(attributes.lastModifiedTime(), attributes.size(), Document.parse(file));
+            store(file, parsed);
+            return parsed.document();
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to read the included Sociable Weaver playbook file: " + file, e);
+        }
+    }
+
+    private static Parsed find(final Path file) {
+        synchronized (PARSED) {
+            return PARSED.get(file);
+        }
+    }
+
+    private static void store(final Path file, final Parsed parsed) {
+        synchronized (PARSED) {
+            PARSED.put(file, parsed);
+        }
+    }
+
+    private record Parsed(FileTime modified, long size, Document document) {
+
+        private boolean isOf(final BasicFileAttributes attributes) {
+            return modified.equals(attributes.lastModifiedTime()) && size == attributes.size();
+        }
+    }
+
+    private static final int MAX_PLAYBOOKS = 64;
+
+    private static final Map<Path, Parsed> PARSED = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Path, Parsed> eldest) {
+            return size() > MAX_PLAYBOOKS;
+        }
+    };
+}
@@ -0,0 +1,52 @@
+package demo.domain;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.OptionalInt;
+import java.util.stream.Stream;
+
+import static java.util.Objects.requireNonNull;
+
+final class IndentedWriter {
+
+    private final Appendable sink;
+    private final String indent;
+
+    IndentedWriter(final Appendable sink, final OptionalInt indent) {
+        this.sink = requireNonNull(sink);
+        this.indent = indent.isEmpty() ? "" : " ".repeat(indent.getAsInt());
+    }
+
+    IndentedWriter lines(final String... lines) {
+        for (final String line : lines) {
+            line(line);
+        }
+        return this;
+    }
+
+    IndentedWriter lines(final Iterable<String> lines) {
+        for (final String line : lines) {
+            line(line);
+        }
+        return this;
+    }
+
+    IndentedWriter lines(final Stream<String> lines) {
+        for (final Iterator<String> iterator = lines.iterator(); iterator.hasNext(); ) {
+            line(iterator.next());
+        }
+        return this;
+    }
+
+    private void line(final String line) {
+        try {
+            if (!line.isBlank()) {
+                sink.append(indent);
+            }
+            sink.append(line).append('\n');
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to write the output", e);
+        }
+    }
+}
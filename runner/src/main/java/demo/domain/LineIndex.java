@@ -0,0 +1,213 @@
+package demo.domain;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.OptionalInt;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.READ;
+
+/* Scanning for line terminators byte by byte is safe with UTF-8, as these bytes are never part of a multibyte
+   character */
+final class LineIndex {
+
+    private final long size;
+    private final FileTime modified;
+    private long[] checkpoints = new long[16];
+    private int checkpointCount = 1;
+
+    private LineIndex(final long size, final FileTime modified) {
+        this.size = size;
+        this.modified = modified;
+    }
+
+    /* Lines are numbered from 1, and end with '\n', '\r' or "\r\n", like the lines returned by Files.lines() */
+    static Stream<String> lines(final Indexes indexes, final Path file, final int fromLine,
+                                final OptionalInt numberOfLines) {
+        if (fromLine < 1) {
+            throw new IllegalArgumentException("The first line must be 1 or more, but was " + fromLine);
+        }
+        if (numberOfLines.isPresent() && numberOfLines.getAsInt() < 0) {
+            throw new IllegalArgumentException("The number of lines cannot be negative, but was "
+                    + numberOfLines.getAsInt());
+        }
+
+        try {
+            final BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            final MappedFile mapped = MappedFile.map(file, attributes.size());
+            final long start = indexes.of(file, attributes).startOf(mapped, fromLine - 1L);
+            final long count = numberOfLines.isPresent() ? numberOfLines.getAsInt() : Long.MAX_VALUE;
+            return StreamSupport.stream(new Lines(file, mapped, start, count), false);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to read file " + file, e);
+        }
+    }
+
+    private boolean isOf(final BasicFileAttributes attributes) {
+        return size == attributes.size() && modified.equals(attributes.lastModifiedTime());
+    }
+
+    /* Returns where the line, counted from 0, starts, or the size of the file when the file has fewer lines */
+    private synchronized long startOf(final MappedFile file, final long line) {
+        final int nearest = (int) Math.min(line / STRIDE, checkpointCount - 1);
+        long current = nearest * STRIDE;
+        long offset = checkpoints[nearest];
+
+        while (current < line && offset < size) {
+            offset = file.nextLineStart(file.lineEnd(offset));
+            current++;
+
+            if (current % STRIDE == 0 && current / STRIDE == checkpointCount) {
+                if (checkpointCount == checkpoints.length) {
+                    checkpoints = Arrays.copyOf(checkpoints, checkpointCount * 2);
+                }
+                checkpoints[checkpointCount++] = offset;
+            }
+        }
+
+        return offset;
+    }
+
+    static final class Indexes {
+
+        private final ConcurrentMap<Path, LineIndex> indexes = new ConcurrentHashMap<>();
+
+        private LineIndex of(final Path file, final BasicFileAttributes attributes) {
+            return indexes.compute(file.toAbsolutePath().normalize(), (_, index) ->
+                    index != null && index.isOf(attributes)
+                            ? index
+                            : new LineIndex(attributes.size(), attributes.lastModifiedTime()));
+        }
+    }
+
+    /* Files larger than what a single buffer can address are mapped in regions */
+    private static final class MappedFile {
+
+        private final long size;
+        private final MappedByteBuffer[] regions;
+
+        private MappedFile(final long size, final MappedByteBuffer[] regions) {
+            this.size = size;
+            this.regions = regions;
+        }
+
+        /* The mapping remains valid once the channel is closed, and is released with the buffers */
+        private static MappedFile map(final Path file, final long size) throws IOException {
+            final MappedByteBuffer[] regions = new MappedByteBuffer[(int) ((size + REGION_SIZE - 1) >>> REGION_BITS)];
+            try (FileChannel channel = FileChannel.open(file, READ)) {
+                for (int i = 0; i < regions.length; i++) {
+                    final long position = (long) i << REGION_BITS;
+                    regions[i] = channel.map(READ_ONLY, position, Math.min(REGION_SIZE, size - position));
+                }
+            }
+            return new MappedFile(size, regions);
+        }
+
+        private long lineEnd(final long from) {
+            long position = from;
+            while (position < size) {
+                final MappedByteBuffer region = regions[(int) (position >>> REGION_BITS)];
+                final long regionStart = position & ~REGION_MASK;
+                final int limit = region.limit();
+                for (int i = (int) (position & REGION_MASK); i < limit; i++) {
+                    final byte b = region.get(i);
+                    if (b == '\n' || b == '\r') {
+                        return regionStart + i;
+                    }
+                }
+                position = regionStart + limit;
+            }
+            return size;
+        }
+
+        private long nextLineStart(final long lineEnd) {
+            if (lineEnd >= size) {
+                return size;
+            }
+            return get(lineEnd) == '\r' && lineEnd + 1 < size && get(lineEnd + 1) == '\n'
+                    ? lineEnd + 2
+                    : lineEnd + 1;
+        }
+
+        private byte get(final long position) {
+            return regions[(int) (position >>> REGION_BITS)].get((int) (position & REGION_MASK));
+        }
+
+        private ByteBuffer slice(final long from, final long to) {
+            final int length = Math.toIntExact(to - from);
+            final MappedByteBuffer region = regions[(int) (from >>> REGION_BITS)];
+            final int index = (int) (from & REGION_MASK);
+            if (index + length <= region.limit()) {
+                return region.slice(index, length);
+            }
+
+            /* The line spans two regions */
+            final byte[] bytes = new byte[length];
+            for (int i = 0; i < length; i++) {
+                bytes[i] = get(from + i);
+            }
+            return ByteBuffer.wrap(bytes);
+        }
+    }
+
+    private static final class Lines extends Spliterators.AbstractSpliterator<String> {
+
+        private final Path path;
+        private final MappedFile file;
+        private final CharsetDecoder decoder = UTF_8.newDecoder();
+        private long position;
+        private long remaining;
+
+        private Lines(final Path path, final MappedFile file, final long position, final long remaining) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.path = path;
+            this.file = file;
+            this.position = position;
+            this.remaining = remaining;
+        }
+
+        @Override
+        public boolean tryAdvance(final Consumer<? super String> action) {
+            if (remaining <= 0 || position >= file.size) {
+                return false;
+            }
+
+            final long end = file.lineEnd(position);
+            final String line;
+            try {
+                line = decoder.decode(file.slice(position, end)).toString();
+            } catch (final CharacterCodingException e) {
+                throw new UncheckedIOException("Failed to read file " + path, e);
+            }
+
+            position = file.nextLineStart(end);
+            remaining--;
+            action.accept(line);
+            return true;
+        }
+    }
+
+    private static final long STRIDE = 256;
+
+    private static final int REGION_BITS = 30;
+    private static final long REGION_SIZE = 1L << REGION_BITS;
+    private static final long REGION_MASK = REGION_SIZE - 1;
+}
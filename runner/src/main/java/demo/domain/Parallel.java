@@ -0,0 +1,150 @@
+package demo.domain;
+
+import com.fasterxml.jackson.annotation.JsonTypeName;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.OptionalInt;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+@JsonTypeName("Parallel")
+public record Parallel(List<Entry> entries, OptionalInt maxConcurrency) implements Entry {
+
+    public Parallel {
+        entries = List.copyOf(entries);
+
+        /* The included entries run one after the other, as part of the playbook */
+        if (entries.stream().anyMatch(Include.class::isInstance)) {
+            throw new IllegalArgumentException("The entries running in parallel cannot include other playbooks");
+        }
+
+        if (maxConcurrency.isPresent() && maxConcurrency.getAsInt() < 1) {
+            throw new IllegalArgumentException("The max concurrency must be at least 1");
+        }
+    }
+
+    @Override
+    public Result run() {
+        try (RunContext context = RunContext.create(RunOptions.defaults())) {
+            return run(context);
+        }
+    }
+
+    @Override
+    public Result run(final RunContext context) {
+        final RunContext concurrent = context.concurrent();
+        final Semaphore permits = new Semaphore(maxConcurrencyOrDefault());
+        final AtomicBoolean failed = new AtomicBoolean();
+
+        /* An entry counts as started before it runs, so that its finally block runs even when the entry throws */
+        final ConcurrentSkipListSet<Integer> started = new ConcurrentSkipListSet<>();
+        context.putState(this, started);
+
+        /* Entries that have not started yet are skipped once one fails, like Document.run does */
+        final List<Future<Result>> futures = new ArrayList<>(entries.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < entries.size(); i++) {
+                final int index = i;
+                final Entry entry = entries.get(i);
+                futures.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        if (failed.get()) {
+                            return null;
+                        }
+
+                        started.add(index);
+                        final Result result = Result.collect(sink -> entry.run(concurrent, sink));
+                        if (result instanceof Result.Error) {
+                            failed.set(true);
+                        }
+                        return result;
+                    } catch (final RuntimeException e) {
+                        failed.set(true);
+                        throw e;
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+        }
+
+        final List<String> outputs = new ArrayList<>(entries.size());
+        for (final Future<Result> future : futures) {
+            final Result result = resultOf(future);
+            if (result == null) {
+                continue;
+            }
+
+            outputs.add(switch (result) {
+                case Result.Ok ok -> ok.output();
+                case Result.Error e -> e.error();
+                case Result.Streamed _ -> throw new IllegalStateException("Entries return their output when run without a sink");
+            });
+        }
+
+        /* Each output is followed by an empty line, as if the entries were part of the document */
+        final String output = String.join("\n", outputs);
+        return failed.get()
+                ? Result.error(output)
+                : Result.ok(output);
+    }
+
+    @Override
+    public void runFinally() {
+        try (RunContext context = RunContext.create(RunOptions.defaults())) {
+            runFinally(context);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void runFinally(final RunContext context) {
+        final NavigableSet<Integer> started = context.state(this, NavigableSet.class)
+                .map(set -> (NavigableSet<Integer>) set)
+                .orElseGet(() -> IntStream.range(0, entries.size())
+                        .boxed()
+                        .collect(Collectors.toCollection(TreeSet::new)));
+
+        final RunContext concurrent = context.concurrent();
+        for (final int index : started.descendingSet()) {
+            entries.get(index).runFinally(concurrent);
+        }
+    }
+
+    @Override
+    public List<Path> dependencies(final Path directory) {
+        return entries.stream()
+                .flatMap(entry -> entry.dependencies(directory).stream())
+                .toList();
+    }
+
+    private int maxConcurrencyOrDefault() {
+        return maxConcurrency.orElse(Runtime.getRuntime().availableProcessors());
+    }
+
+    private static Result resultOf(final Future<Result> future) {
+        try {
+            return future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while running the entries in parallel", e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException("Failed to run the entries in parallel", e.getCause());
+        }
+    }
+}
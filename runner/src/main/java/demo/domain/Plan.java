@@ -0,0 +1,405 @@
+package demo.domain;
+
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import demo.json.DurationDeserializer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.util.Objects.requireNonNull;
+
+public final class Plan {
+
+    private final Path playbook;
+    private final List<Entry> entries;
+    private final List<Problem> parseProblems;
+    private final Map<Entry, String> pointers;
+    private final List<Command> planned;
+    private Map<String, JsonLocation> locations;
+
+    private Plan(final Path playbook, final List<Problem> parseProblems, final Map<String, JsonLocation> locations) {
+        this.playbook = playbook;
+        this.entries = new ArrayList<>();
+        this.parseProblems = parseProblems;
+        this.pointers = new IdentityHashMap<>();
+        this.planned = new ArrayList<>();
+        this.locations = locations;
+    }
+
+    /* Reads the JSON playbook entry by entry only when it cannot be loaded as a whole, to report every problem */
+    public static Plan parse(final Path playbook) {
+        requireNonNull(playbook);
+
+        final List<String> unrecognised = new ArrayList<>();
+        try {
+            final Document document = Document.parse(playbook, unrecognised::add);
+            if (unrecognised.isEmpty()) {
+                final Plan plan = new Plan(playbook, List.of(), null);
+                for (int i = 0; i < document.entries().size(); i++) {
+                    plan.plan("/entries/" + i, document.entries().get(i));
+                    plan.entries.add(document.entries().get(i));
+                }
+                return plan;
+            }
+        } catch (final IllegalArgumentException e) {
+            /* Read again below, to find every problem */
+        }
+
+        return read(playbook);
+    }
+
+    public List<Entry> entries() {
+        if (!parseProblems.isEmpty()) {
+            final Problem first = parseProblems.getFirst();
+            throw new IllegalArgumentException("Failed to parse the playbook at " + first.line() + ":" + first.column()
+                    + " " + first.pointer() + ": " + first.message());
+        }
+        return Collections.unmodifiableList(entries);
+    }
+
+    /* The files are checked every time, as these may change from one run to the next.  The relative paths are resolved
+       against the directory the playbook runs from, as the entries do when run. */
+    public List<Problem> check(final Path directory) {
+        requireNonNull(directory);
+
+        final List<Problem> checked = new ArrayList<>();
+        final List<String> commands = new ArrayList<>();
+        final Deque<Path> including = new ArrayDeque<>();
+        including.push(playbook.toAbsolutePath().normalize());
+        for (final Entry entry : entries) {
+            check(entry, pointers.get(entry), directory, commands, including, checked);
+        }
+
+        /* A field that could not be read as it is written is only reported once */
+        final List<Problem> problems = new ArrayList<>(parseProblems);
+        for (final Problem problem : checked) {
+            if (parseProblems.stream().noneMatch(parsed -> parsed.pointer().equals(problem.pointer()))) {
+                problems.add(problem);
+            }
+        }
+        problems.sort(Comparator.comparingInt(Problem::line).thenComparingInt(Problem::column));
+        return List.copyOf(problems);
+    }
+
+    public void prepare(final RunContext context) {
+        requireNonNull(context);
+        for (final Command command : planned) {
+            context.putState(command, command.scripts(context.options().shellMode()));
+        }
+    }
+
+    private static Plan read(final Path playbook) {
+        final Map<String, JsonLocation> locations = new HashMap<>();
+        final JsonNode root;
+        try (JsonParser parser = Document.mapper().createParser(playbook.toFile())) {
+            final TokenBuffer buffer = new TokenBuffer(parser);
+            for (JsonToken token = parser.nextToken(); token != null; token = parser.nextToken()) {
+                locate(parser, locations);
+                buffer.copyCurrentEvent(parser);
+            }
+            root = Document.mapper().readTree(buffer.asParser());
+        } catch (final JsonProcessingException e) {
+            final Problem problem = new Problem("", line(e.getLocation()), column(e.getLocation()), Severity.ERROR,
+                    "The playbook is not valid JSON: " + e.getOriginalMessage());
+            return new Plan(playbook, List.of(problem), Map.of());
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to read the Sociable Weaver playbook file: " + playbook, e);
+        }
+
+        final Plan plan = new Plan(playbook, new ArrayList<>(), locations);
+        plan.read(root);
+        return plan;
+    }
+
+    private void read(final JsonNode root) {
+        if (!root.isObject()) {
+            parseProblems.add(problem("", "The playbook is not a JSON object"));
+            return;
+        }
+
+        for (Iterator<String> names = root.fieldNames(); names.hasNext(); ) {
+            final String name = names.next();
+            if (!"entries".equals(name)) {
+                parseProblems.add(problem("/" + name,
+                        "Unknown field '" + name + "', the entries are the only field of a playbook"));
+            }
+        }
+
+        final JsonNode array = root.path("entries");
+        if (array.isMissingNode()) {
+            return;
+        }
+        if (!array.isArray()) {
+            parseProblems.add(problem("/entries", "The entries are not an array"));
+            return;
+        }
+
+        for (int i = 0; i < array.size(); i++) {
+            final String pointer = "/entries/" + i;
+            final JsonNode node = array.get(i);
+            checkDurations(pointer, node, parseProblems);
+
+            try {
+                final Entry entry = Document.mapper().treeToValue(node, Entry.class);
+                plan(pointer, entry);
+                entries.add(entry);
+            } catch (final JsonMappingException e) {
+                parseProblems.add(problem(pointer + pointerOf(e.getPath()), e.getOriginalMessage()));
+            } catch (final JsonProcessingException e) {
+                parseProblems.add(problem(pointer, e.getOriginalMessage()));
+            }
+        }
+    }
+
+    private void plan(final String pointer, final Entry entry) {
+        pointers.put(entry, pointer);
+        switch (entry) {
+            case Command command -> planned.add(command);
+            case Parallel parallel -> {
+                for (int i = 0; i < parallel.entries().size(); i++) {
+                    plan(pointer + "/entries/" + i, parallel.entries().get(i));
+                }
+            }
+            default -> {}
+        }
+    }
+
+    /* A duration that is not recognised is read as zero, or as the parts that are recognised, rather than failing */
+    private void checkDurations(final String pointer, final JsonNode entry, final List<Problem> problems) {
+        for (final String field : List.of("should_finish_within", "should_be_ready_within")) {
+            final JsonNode within = entry.path(field);
+            if (within.isTextual() && !within.asText().isBlank()) {
+                final String text = within.asText();
+                final Duration duration = DurationDeserializer.parseDuration(text);
+                if (!DurationDeserializer.isDuration(text)) {
+                    problems.add(problem(pointer + "/" + field, "'" + text + "' is not a duration, such as"
+                            + " '2 minutes 30 seconds', and would be read as " + duration.toSeconds() + " seconds"));
+                }
+            }
+        }
+
+        final JsonNode nested = entry.path("entries");
+        if ("Parallel".equals(entry.path("type").asText()) && nested.isArray()) {
+            for (int i = 0; i < nested.size(); i++) {
+                checkDurations(pointer + "/entries/" + i, nested.get(i), problems);
+            }
+        }
+    }
+
+    /* The commands are the ones that run before the entry, which may create the files it uses */
+    private void check(final Entry entry,
+                       final String pointer,
+                       final Path directory,
+                       final List<String> commands,
+                       final Deque<Path> including,
+                       final List<Problem> problems) {
+        switch (entry) {
+            case Command command -> {
+                if (command.commands().isEmpty()) {
+                    problems.add(warning(pointer + "/commands", "There are no commands to run"));
+                }
+                checkTime(command.shouldFinishWithin(), pointer + "/should_finish_within", problems);
+
+                checkWorkingDir(command.workingDir(), pointer, directory, commands, problems);
+
+                commands.addAll(command.commands());
+            }
+            case Background background -> {
+                if (background.commands().isEmpty()) {
+                    problems.add(warning(pointer + "/commands", "There are no commands to run"));
+                }
+                checkTime(background.shouldBeReadyWithin(), pointer + "/should_be_ready_within", problems);
+
+                checkWorkingDir(background.workingDir(), pointer, directory, commands, problems);
+
+                commands.addAll(background.commands());
+            }
+            case BackgroundAction action ->
+                    checkTime(action.shouldFinishWithin(), pointer + "/should_finish_within", problems);
+            case DisplayFile displayFile -> {
+                if (displayFile.fromLine().orElse(1) < 1) {
+                    problems.add(problem(pointer + "/from_line", "The lines are numbered from 1"));
+                }
+                if (displayFile.numberOfLines().orElse(0) < 0) {
+                    problems.add(problem(pointer + "/number_of_lines", "The number of lines cannot be negative"));
+                }
+
+                final Path file = displayFile.resolve(directory);
+                if (Files.exists(file)) {
+                    if (!Files.isRegularFile(file) || !Files.isReadable(file)) {
+                        problems.add(warning(pointer + "/path", "The file " + file + " cannot be read"));
+                    }
+                } else if (!isCreatedBy(file, commands)) {
+                    problems.add(warning(pointer + "/path", "The file " + file
+                            + " does not exist, and no earlier command creates it"));
+                }
+            }
+            case Parallel parallel -> {
+                /* The entries run at the same time, so none of them can count on the others */
+                final int before = commands.size();
+                final List<String> started = new ArrayList<>();
+                for (int i = 0; i < parallel.entries().size(); i++) {
+                    final Entry nested = parallel.entries().get(i);
+                    final List<String> own = new ArrayList<>(commands.subList(0, before));
+                    check(nested, pointers.getOrDefault(nested, pointer + "/entries/" + i), directory, own, including,
+                            problems);
+                    started.addAll(own.subList(before, own.size()));
+                }
+                commands.addAll(started);
+            }
+            case Include include -> {
+                final Path file;
+                final Document document;
+                try {
+                    file = Include.resolve(include.path(), including.peek().getParent(), including);
+                    document = IncludedPlaybooks.parse(file);
+                } catch (final IllegalArgumentException | UncheckedIOException e) {
+                    problems.add(problem(pointer + "/path", e.getMessage()));
+                    return;
+                }
+
+                final List<Problem> included = new ArrayList<>();
+                including.push(file);
+                for (int i = 0; i < document.entries().size(); i++) {
+                    check(document.entries().get(i), "/entries/" + i, directory, commands, including, included);
+                }
+                including.pop();
+
+                included.forEach(problem -> problems.add(problem(pointer + "/path", problem.severity(),
+                        "In " + file + " at " + problem.pointer() + ": " + problem.message())));
+            }
+            default -> {}
+        }
+    }
+
+    private void checkWorkingDir(final Optional<Path> workingDir,
+                                 final String pointer,
+                                 final Path directory,
+                                 final List<String> commands,
+                                 final List<Problem> problems) {
+        workingDir.map(directory::resolve)
+                .filter(resolved -> !Files.isDirectory(resolved) && !isCreatedBy(resolved, commands))
+                .ifPresent(resolved -> problems.add(warning(pointer + "/working_dir", "The working directory "
+                        + resolved + " does not exist, and no earlier command creates it")));
+    }
+
+    private void checkTime(final Optional<Duration> within, final String pointer, final List<Problem> problems) {
+        if (within.filter(Duration::isZero).isPresent()) {
+            problems.add(problem(pointer, "The duration leaves no time for the commands to run"));
+        }
+    }
+
+    /* Whatever creates the first missing directory on the way to the path creates the path too */
+    private static boolean isCreatedBy(final Path path, final List<String> commands) {
+        Path missing = path.toAbsolutePath().normalize();
+        for (Path parent = missing.getParent(); parent != null && !Files.exists(parent); parent = parent.getParent()) {
+            missing = parent;
+        }
+
+        if (missing.getFileName() == null) {
+            return false;
+        }
+
+        final String name = missing.getFileName().toString();
+        return commands.stream().anyMatch(command -> command.contains(name));
+    }
+
+    private Problem problem(final String pointer, final String message) {
+        return problem(pointer, Severity.ERROR, message);
+    }
+
+    /* Does not stop the run, as a command may create a path in a way that cannot be told before running */
+    private Problem warning(final String pointer, final String message) {
+        return problem(pointer, Severity.WARNING, message);
+    }
+
+    private Problem problem(final String pointer, final Severity severity, final String message) {
+        if (locations == null) {
+            locations = locate(playbook);
+        }
+
+        /* Problems with a field that is missing are reported where the entry is */
+        String located = pointer;
+        while (!locations.containsKey(located) && !located.isEmpty()) {
+            located = located.substring(0, located.lastIndexOf('/'));
+        }
+
+        final JsonLocation location = locations.get(located);
+        return new Problem(pointer, line(location), column(location), severity, message);
+    }
+
+    private static Map<String, JsonLocation> locate(final Path playbook) {
+        final Map<String, JsonLocation> locations = new HashMap<>();
+        try (JsonParser parser = Document.mapper().createParser(playbook.toFile())) {
+            while (parser.nextToken() != null) {
+                locate(parser, locations);
+            }
+        } catch (final IOException e) {
+            /* The playbook changed since it was loaded, the problems are reported where these can be */
+        }
+        return locations;
+    }
+
+    private static void locate(final JsonParser parser, final Map<String, JsonLocation> locations) {
+        final JsonToken token = parser.currentToken();
+        if (token != JsonToken.FIELD_NAME && !token.isStructEnd()) {
+            locations.putIfAbsent(parser.getParsingContext().pathAsPointer().toString(), parser.currentTokenLocation());
+        }
+    }
+
+    private static String pointerOf(final List<JsonMappingException.Reference> path) {
+        final StringBuilder pointer = new StringBuilder();
+        for (final JsonMappingException.Reference reference : path) {
+            pointer.append('/').append(reference.getFieldName() != null
+                    ? reference.getFieldName()
+                    : String.valueOf(reference.getIndex()));
+        }
+        return pointer.toString();
+    }
+
+    private static int line(final JsonLocation location) {
+        return location == null ? 0 : location.getLineNr();
+    }
+
+    private static int column(final JsonLocation location) {
+        return location == null ? 0 : location.getColumnNr();
+    }
+
+    /* Lines and columns are numbered from 1, and are 0 when not known */
+    public record Problem(String pointer, int line, int column, Severity severity, String message) {
+
+        public Problem {
+            requireNonNull(pointer);
+            requireNonNull(severity);
+            requireNonNull(message);
+        }
+
+        public boolean isError() {
+            return severity == Severity.ERROR;
+        }
+    }
+
+    public enum Severity {
+        ERROR, WARNING
+    }
+}
@@ -0,0 +1,37 @@
+package demo.domain;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.cfg.MapperBuilder;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import demo.json.DurationDeserializer;
+
+/* The mappers are thread safe and costly to create, so they are shared by all the playbooks parsed by the process */
+final class PlaybookMappers {
+
+    private PlaybookMappers() {}
+
+    private static <M extends ObjectMapper, B extends MapperBuilder<M, B>> M createMapper(final B builder) {
+        return builder
+                .addModule(new Jdk8Module())
+                .addModule(DurationDeserializer.createModule())
+                .propertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE)
+                .registerSubtypes(
+                        Background.class,
+                        BackgroundAction.class,
+                        Breakpoint.class,
+                        Command.class,
+                        DisplayFile.class,
+                        Heading.class,
+                        Include.class,
+                        Markdown.class,
+                        Parallel.class,
+                        Todo.class)
+                .build();
+    }
+
+    static final ObjectMapper JSON = createMapper(JsonMapper.builder());
+    static final ObjectMapper SMILE = createMapper(SmileMapper.builder());
+}
@@ -0,0 +1,128 @@
+package demo.domain;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+import static java.util.Objects.requireNonNull;
+
+final class PlaybookReader implements Iterator<Entry>, AutoCloseable {
+
+    private final Path file;
+    private final ObjectMapper mapper;
+    private final JsonParser parser;
+
+    private boolean positioned;
+    private boolean advance = true;
+    private boolean exhausted;
+
+    private PlaybookReader(final Path file, final ObjectMapper mapper, final JsonParser parser) {
+        this.file = file;
+        this.mapper = mapper;
+        this.parser = parser;
+    }
+
+    static PlaybookReader open(final Path file) {
+        requireNonNull(file);
+
+        /* The compiled playbook has the same structure as the JSON playbook, only in a binary format */
+        final Optional<JsonParser> compiled = CompiledPlaybook.open(file);
+        if (compiled.isPresent()) {
+            return new PlaybookReader(file, Document.smileMapper(), compiled.get());
+        }
+
+        final ObjectMapper mapper = Document.mapper();
+        try {
+            return new PlaybookReader(file, mapper, mapper.createParser(file.toFile()));
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to read the Sociable Weaver playbook file: " + file, e);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (exhausted) {
+            return false;
+        }
+
+        try {
+            if (!positioned) {
+                positioned = true;
+                if (!moveToEntries()) {
+                    exhausted = true;
+                    return false;
+                }
+            }
+
+            /* Reading an entry leaves the parser on its last token, the next entry starts after it */
+            if (advance) {
+                advance = false;
+                if (parser.nextToken() == null) {
+                    throw new IllegalArgumentException("The playbook " + file + " ended before its last entry");
+                }
+            }
+
+            exhausted = parser.currentToken() == JsonToken.END_ARRAY;
+            return !exhausted;
+        } catch (final JsonProcessingException e) {
+            throw new IllegalArgumentException("Failed to parse the JSON object", e);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to read the Sociable Weaver playbook file: " + file, e);
+        }
+    }
+
+    @Override
+    public Entry next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("All the entries of " + file + " were read");
+        }
+
+        try {
+            final Entry entry = mapper.readValue(parser, Entry.class);
+            advance = true;
+            return entry;
+        } catch (final JsonProcessingException e) {
+            throw new IllegalArgumentException("Failed to parse the JSON object", e);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to read the Sociable Weaver playbook file: " + file, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            parser.close();
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to close the Sociable Weaver playbook file: " + file, e);
+        }
+    }
+
+    private boolean moveToEntries() throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IllegalArgumentException("The playbook " + file + " is not a JSON object");
+        }
+
+        /* The entries are the only field of a playbook */
+        if (parser.nextToken() != JsonToken.FIELD_NAME) {
+            return false;
+        }
+
+        final String name = parser.currentName();
+        if (!"entries".equals(name)) {
+            throw new IllegalArgumentException("Unknown field '" + name + "' in the playbook " + file);
+        }
+
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new IllegalArgumentException("The entries of the playbook " + file + " are not an array");
+        }
+        return true;
+    }
+}
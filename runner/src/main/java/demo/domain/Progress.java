@@ -0,0 +1,41 @@
+package demo.domain;
+
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.OptionalInt;
+
+public interface Progress {
+
+    /* The number of entries is not known when the playbook is run while it is being read */
+    void entryStarted(int index, OptionalInt count, Entry entry);
+
+    CommandProgress commandStarted(String command, Duration timeout);
+
+    interface CommandProgress extends AutoCloseable {
+
+        OutputStream output();
+
+        @Override
+        void close();
+    }
+
+    static Progress none() {
+        return new Progress() {
+            @Override
+            public void entryStarted(final int index, final OptionalInt count, final Entry entry) {}
+
+            @Override
+            public CommandProgress commandStarted(final String command, final Duration timeout) {
+                return new CommandProgress() {
+                    @Override
+                    public OutputStream output() {
+                        return OutputStream.nullOutputStream();
+                    }
+
+                    @Override
+                    public void close() {}
+                };
+            }
+        };
+    }
+}
@@ -1,11 +1,18 @@
 package demo.domain;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Function;
+
 public sealed interface Result {
 
     record Ok(String output) implements Result {}
 
     record Error(String error) implements Result {}
 
+    /* The output was written to the sink given to the entry, instead of being held in memory */
+    record Streamed(boolean ok) implements Result {}
+
     static Result ok(final String output) {
         return new Ok(output);
     }
@@ -13,4 +20,36 @@ public sealed interface Result {
     static Result error(final String error) {
         return new Error(error);
     }
+
+    static Streamed streamed(final boolean ok) {
+        return new Streamed(ok);
+    }
+
+    static Streamed write(final Result result, final Appendable sink) {
+        try {
+            return switch (result) {
+                case Ok ok -> {
+                    sink.append(ok.output());
+                    yield streamed(true);
+                }
+                case Error e -> {
+                    sink.append(e.error());
+                    yield streamed(false);
+                }
+                case Streamed streamed -> streamed;
+            };
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to write the output", e);
+        }
+    }
+
+    static Result collect(final Function<Appendable, Result> entry) {
+        final StringBuilder output = new StringBuilder();
+        return switch (entry.apply(output)) {
+            case Streamed streamed -> streamed.ok()
+                    ? ok(output.toString())
+                    : error(output.toString());
+            case Result result -> result;
+        };
+    }
 }
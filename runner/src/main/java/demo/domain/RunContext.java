@@ -0,0 +1,173 @@
+package demo.domain;
+
+import demo.cache.CommandCache;
+import demo.cache.FileContentCache;
+import demo.journal.Journal;
+import demo.shell.BackgroundProcesses;
+import demo.shell.ProcessReaper;
+import demo.shell.ScratchDirectory;
+import demo.shell.Shell;
+import demo.shell.ShellMode;
+import demo.timing.EntryTimer;
+import demo.timing.Timings;
+
+import java.io.PrintStream;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.util.Objects.requireNonNull;
+
+public final class RunContext implements AutoCloseable {
+
+    private final RunOptions options;
+    private final ScratchDirectory scratch;
+    private final ProcessReaper reaper;
+    private final Shell shell;
+    private final Shell concurrentShell;
+    private final CommandCache cache;
+    private final FileContentCache files;
+    private final LineIndex.Indexes lineIndexes;
+    private final BackgroundProcesses background;
+    private final Journal journal;
+    private final Progress progress;
+    private final Timings timings;
+    private final EntryTimer timer;
+    private final Map<Entry, Object> states;
+    private final boolean owner;
+
+    private RunContext(final RunOptions options, final PrintStream console) {
+        this.options = requireNonNull(options);
+        this.scratch = ScratchDirectory.create();
+        this.reaper = new ProcessReaper(options.killGracePeriod());
+        this.shell = options.shellMode().create(options.outputBufferSize(), scratch, reaper,
+                options.playbookDirectory());
+        /* The persistent shell runs one script at a time, entries running concurrently get a shell of their own */
+        this.concurrentShell = options.shellMode() == ShellMode.PERSISTENT
+                ? ShellMode.STDIN.create(options.outputBufferSize(), scratch, reaper, options.playbookDirectory())
+                : shell;
+        this.cache = CommandCache.create(options.cache());
+        this.files = FileContentCache.create(options.fileCacheSize());
+        this.lineIndexes = new LineIndex.Indexes();
+        this.background = new BackgroundProcesses(options.outputBufferSize(), scratch, reaper,
+                options.playbookDirectory());
+        this.journal = options.journal()
+                .map(file -> Journal.open(file, options.resume()))
+                .orElseGet(Journal::disabled);
+        this.progress = options.progress()
+                ? new ConsoleProgress(requireNonNull(console), ConsoleProgress.DEFAULT_STATUS_INTERVAL)
+                : Progress.none();
+        this.timings = new Timings();
+        this.timer = new EntryTimer();
+        this.states = Collections.synchronizedMap(new IdentityHashMap<>());
+        this.owner = true;
+    }
+
+    private RunContext(final RunContext parent, final Shell shell, final EntryTimer timer) {
+        this.options = parent.options;
+        this.scratch = parent.scratch;
+        this.reaper = parent.reaper;
+        this.shell = shell;
+        this.concurrentShell = parent.concurrentShell;
+        this.cache = parent.cache;
+        this.files = parent.files;
+        this.lineIndexes = parent.lineIndexes;
+        this.background = parent.background;
+        this.journal = parent.journal;
+        this.progress = parent.progress;
+        this.timings = parent.timings;
+        this.timer = timer;
+        this.states = parent.states;
+        this.owner = false;
+    }
+
+    public static RunContext create(final RunOptions options) {
+        return create(options, System.out);
+    }
+
+    /* The progress is printed to the given console, which is not the one of this process when run by the daemon */
+    public static RunContext create(final RunOptions options, final PrintStream console) {
+        return new RunContext(options, console);
+    }
+
+    public RunOptions options() {
+        return options;
+    }
+
+    public Shell shell() {
+        return shell;
+    }
+
+    public ProcessReaper reaper() {
+        return reaper;
+    }
+
+    public CommandCache cache() {
+        return cache;
+    }
+
+    public FileContentCache files() {
+        return files;
+    }
+
+    LineIndex.Indexes lineIndexes() {
+        return lineIndexes;
+    }
+
+    public BackgroundProcesses background() {
+        return background;
+    }
+
+    public Journal journal() {
+        return journal;
+    }
+
+    public Progress progress() {
+        return progress;
+    }
+
+    public Timings timings() {
+        return timings;
+    }
+
+    public EntryTimer timer() {
+        return timer;
+    }
+
+    public RunContext concurrent() {
+        return shell == concurrentShell
+                ? this
+                : new RunContext(this, concurrentShell, timer);
+    }
+
+    public RunContext timed(final EntryTimer timer) {
+        return new RunContext(this, shell, requireNonNull(timer));
+    }
+
+    public void putState(final Entry entry, final Object state) {
+        states.put(requireNonNull(entry), requireNonNull(state));
+    }
+
+    public <T> Optional<T> state(final Entry entry, final Class<T> type) {
+        return Optional.ofNullable(states.get(entry))
+                .filter(type::isInstance)
+                .map(type::cast);
+    }
+
+    @Override
+    public void close() {
+        if (!owner) {
+            return;
+        }
+
+        /* The background processes are stopped first, as their output may be in the scratch directory */
+        try (ScratchDirectory _ = scratch; CommandCache _ = cache; Journal _ = journal;
+             BackgroundProcesses _ = background) {
+            shell.close();
+            if (concurrentShell != shell) {
+                concurrentShell.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package demo.domain;
+
+import demo.cache.CacheOptions;
+import demo.cache.FileContentCache;
+import demo.shell.CapturedOutput;
+import demo.shell.ProcessReaper;
+import demo.shell.ShellMode;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+
+import static java.util.Objects.requireNonNull;
+
+public record RunOptions(ShellMode shellMode, long outputBufferSize, CacheOptions cache, Optional<Path> journal,
+                         boolean resume, boolean progress, Duration killGracePeriod, long fileCacheSize,
+                         Path playbookDirectory) {
+
+    public RunOptions {
+        requireNonNull(shellMode);
+        requireNonNull(cache);
+        requireNonNull(journal);
+        requireNonNull(killGracePeriod);
+        playbookDirectory = playbookDirectory.toAbsolutePath().normalize();
+
+        if (outputBufferSize < 0) {
+            throw new IllegalArgumentException("The output buffer size cannot be negative");
+        }
+
+        if (fileCacheSize < 0) {
+            throw new IllegalArgumentException("The file cache size cannot be negative");
+        }
+    }
+
+    public static RunOptions defaults() {
+        return new RunOptions(ShellMode.SCRIPT_FILE, CapturedOutput.DEFAULT_SPILL_THRESHOLD, CacheOptions.defaults(),
+                Optional.empty(), false, false, ProcessReaper.DEFAULT_GRACE_PERIOD,
+                FileContentCache.DEFAULT_MAX_SIZE, Path.of(""));
+    }
+
+    public RunOptions withPlaybookDirectory(final Path playbookDirectory) {
+        return new RunOptions(shellMode, outputBufferSize, cache, journal, resume, progress, killGracePeriod,
+                fileCacheSize, playbookDirectory);
+    }
+}
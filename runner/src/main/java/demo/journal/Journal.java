@@ -0,0 +1,235 @@
+package demo.journal;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+/* Only an unbroken prefix of successful entries is replayed, as an entry may depend on everything that ran before it */
+public final class Journal implements AutoCloseable {
+
+    private final List<JournalEntry> previous;
+    private final BufferedWriter writer;
+    private boolean replaying;
+    private int replayed;
+
+    private Journal(final List<JournalEntry> previous, final BufferedWriter writer) {
+        this.previous = previous;
+        this.writer = writer;
+        this.replaying = !previous.isEmpty();
+    }
+
+    public static Journal disabled() {
+        return new Journal(List.of(), null);
+    }
+
+    public static Journal open(final Path file, final boolean resume) {
+        requireNonNull(file);
+
+        final List<JournalEntry> previous = resume ? read(file) : List.of();
+        try {
+            final Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            return new Journal(previous, Files.newBufferedWriter(file, UTF_8));
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to open the journal " + file, e);
+        }
+    }
+
+    public synchronized Optional<String> replay(final int index, final Object entry, final List<Path> dependencies) {
+        if (!replaying) {
+            return Optional.empty();
+        }
+
+        final Optional<JournalEntry> journaled = index < previous.size()
+                ? Optional.of(previous.get(index))
+                : Optional.empty();
+        final Optional<String> output = journaled
+                .filter(e -> e.index() == index && e.ok() && e.hash().equals(hash(entry, dependencies)))
+                .map(JournalEntry::output);
+
+        if (output.isEmpty()) {
+            replaying = false;
+        } else {
+            replayed++;
+        }
+        return output;
+    }
+
+    public synchronized Optional<String> stopReplaying() {
+        replaying = false;
+        return Optional.empty();
+    }
+
+    public Recording record(final int index, final Object entry, final List<Path> dependencies,
+                            final Appendable sink) {
+        requireNonNull(sink);
+
+        if (writer == null) {
+            return new Recording(sink, null);
+        }
+
+        try {
+            writer.write("{\"index\":" + index + ",\"hash\":\"" + hash(entry, dependencies) + "\",\"output\":\"");
+            return new Recording(sink, writer);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to write to the journal", e);
+        }
+    }
+
+    public synchronized int replayed() {
+        return replayed;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (writer == null) {
+            return;
+        }
+
+        try {
+            writer.close();
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to close the journal", e);
+        }
+    }
+
+    /* The files are covered by their size and modification time, so that these are not read on every run */
+    private static String hash(final Object entry, final List<Path> dependencies) {
+        final MessageDigest digest = sha256();
+        update(digest, entry.toString());
+        for (final Path dependency : dependencies) {
+            update(digest, dependency.toString());
+            updateWithMetadata(digest, dependency);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static void updateWithMetadata(final MessageDigest digest, final Path path) {
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> files = Files.walk(path)) {
+                for (final Path file : files.filter(Files::isRegularFile).sorted().toList()) {
+                    update(digest, path.relativize(file).toString());
+                    updateWithMetadata(digest, file);
+                }
+            } catch (final IOException e) {
+                throw new UncheckedIOException("Failed to list the files in " + path, e);
+            }
+            return;
+        }
+
+        try {
+            update(digest, Files.size(path) + " " + Files.getLastModifiedTime(path).toInstant());
+        } catch (final NoSuchFileException _) {
+            update(digest, "<missing>");
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to read the attributes of " + path, e);
+        }
+    }
+
+    private static void update(final MessageDigest digest, final String value) {
+        digest.update((value + '\0').getBytes(UTF_8));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static List<JournalEntry> read(final Path file) {
+        if (!Files.isRegularFile(file)) {
+            return List.of();
+        }
+
+        final List<JournalEntry> entries = new ArrayList<>();
+        try (Stream<String> lines = Files.lines(file, UTF_8)) {
+            for (final String line : (Iterable<String>) lines::iterator) {
+                entries.add(MAPPER.readValue(line, JournalEntry.class));
+            }
+        } catch (final JsonProcessingException _) {
+            /* A run killed while writing leaves a partial last line behind, the entries read so far are still valid */
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to read the journal " + file, e);
+        }
+        return List.copyOf(entries);
+    }
+
+    public static final class Recording implements Appendable {
+
+        private final Appendable sink;
+        private final BufferedWriter writer;
+
+        private Recording(final Appendable sink, final BufferedWriter writer) {
+            this.sink = sink;
+            this.writer = writer;
+        }
+
+        @Override
+        public Recording append(final CharSequence text) {
+            try {
+                sink.append(text);
+                if (writer != null) {
+                    writer.write(ENCODER.quoteAsString(text));
+                }
+                return this;
+            } catch (final IOException e) {
+                throw new UncheckedIOException("Failed to write the output", e);
+            }
+        }
+
+        @Override
+        public Recording append(final CharSequence text, final int start, final int end) {
+            return append(text.subSequence(start, end));
+        }
+
+        @Override
+        public Recording append(final char c) {
+            return append(String.valueOf(c));
+        }
+
+        public void finish(final boolean ok) {
+            if (writer == null) {
+                return;
+            }
+
+            try {
+                writer.write("\",\"ok\":" + ok + "}\n");
+                /* The journal is most useful when the run is interrupted */
+                writer.flush();
+            } catch (final IOException e) {
+                throw new UncheckedIOException("Failed to write to the journal", e);
+            }
+        }
+    }
+
+    record JournalEntry(int index, String hash, boolean ok, String output) {}
+
+    private static final JsonStringEncoder ENCODER = JsonStringEncoder.getInstance();
+
+    private static final ObjectMapper MAPPER = JsonMapper.builder()
+            .propertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE)
+            .build();
+}
@@ -10,12 +10,14 @@ import com.fasterxml.jackson.databind.module.SimpleModule;
 
 import java.io.IOException;
 import java.time.Duration;
+import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public final class DurationDeserializer extends JsonDeserializer<Duration> {
 
     @Override
+    @SuppressWarnings("unchecked")
     public Duration deserialize(final JsonParser parser, final DeserializationContext context) throws IOException {
         if (parser.getCurrentToken() == JsonToken.VALUE_NULL) {
             return null;
@@ -32,10 +34,13 @@ public final class DurationDeserializer extends JsonDeserializer<Duration> {
             return null;
         }
 
+        if (!isDuration(text) && context.getAttribute(UNRECOGNISED) instanceof Consumer<?> unrecognised) {
+            ((Consumer<Object>) unrecognised).accept(text);
+        }
         return parseDuration(text);
     }
 
-    private static Duration parseDuration(final String text) {
+    public static Duration parseDuration(final String text) {
         /* Regex to match units like "1 hour", "2 minutes", "3 seconds" */
         final Pattern pattern = Pattern.compile("(\\d+)\\s*(hour|minute|second)s?", Pattern.CASE_INSENSITIVE);
         final Matcher matcher = pattern.matcher(text);
@@ -57,9 +62,19 @@ public final class DurationDeserializer extends JsonDeserializer<Duration> {
         return total;
     }
 
+    /* Whether the whole text is a duration, as parseDuration() skips what it does not recognise */
+    public static boolean isDuration(final String text) {
+        return Pattern.compile("\\s*(\\d+\\s*(hour|minute|second)s?\\s*)+", Pattern.CASE_INSENSITIVE)
+                .matcher(text)
+                .matches();
+    }
+
     public static Module createModule() {
         final SimpleModule module = new SimpleModule();
         module.addDeserializer(Duration.class, new DurationDeserializer());
         return module;
     }
+
+    /* The attribute of a reader that is told about the durations read only in part, instead of failing */
+    public static final String UNRECOGNISED = "unrecognisedDurations";
 }
@@ -0,0 +1,305 @@
+package demo.output;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Objects.requireNonNull;
+
+/* Only replaces the target once published, so that a run stopped part way never leaves a half-written output behind */
+public final class OutputFile extends Writer {
+
+    private final Path target;
+    private final Path temporary;
+    private final StringBuilder buffer = new StringBuilder();
+    private final BlockingQueue<String> chunks = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final List<Mark> marks = new ArrayList<>();
+    private final Thread writer;
+
+    private volatile IOException failure;
+    private volatile boolean identical;
+    private long handedOver;
+    private boolean stopped;
+    private boolean published;
+
+    private OutputFile(final Path target,
+                       final Path temporary,
+                       final BufferedWriter file,
+                       final Optional<Reader> previous) {
+        this.target = target;
+        this.temporary = temporary;
+        this.writer = Thread.ofVirtual()
+                .name("sw-output-writer")
+                .start(() -> drain(file, previous));
+    }
+
+    public static OutputFile open(final Path target) {
+        requireNonNull(target);
+
+        final Path absolute = target.toAbsolutePath();
+        final Path directory = absolute.getParent();
+        try {
+            Files.createDirectories(directory);
+
+            /* Within the same file store, as the target can only be replaced atomically there */
+            final Path temporary = directory.resolve("." + absolute.getFileName() + "." + UUID.randomUUID() + ".tmp");
+            return new OutputFile(absolute, temporary, Files.newBufferedWriter(temporary, UTF_8, CREATE_NEW, WRITE),
+                    Files.isRegularFile(absolute) ? Optional.of(reader(absolute)) : Optional.empty());
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to create the output " + target, e);
+        }
+    }
+
+    @Override
+    public void write(final char[] characters, final int offset, final int length) throws IOException {
+        ensureNotStopped();
+        buffer.append(characters, offset, length);
+        handOverFullChunk();
+    }
+
+    @Override
+    public void write(final String text, final int offset, final int length) throws IOException {
+        ensureNotStopped();
+        buffer.append(text, offset, offset + length);
+        handOverFullChunk();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        ensureNotStopped();
+        handOver();
+    }
+
+    public void section(final String title) {
+        requireNonNull(title);
+        marks.add(new Mark(handedOver + buffer.length(), title));
+    }
+
+    public Published publish() {
+        try {
+            flush();
+            stop();
+            if (failure != null) {
+                throw failure;
+            }
+
+            published = true;
+            if (identical) {
+                Files.delete(temporary);
+                return new Published(target, false, List.of());
+            }
+
+            final List<String> changedSections = changedSections();
+            try {
+                Files.move(temporary, target, REPLACE_EXISTING, ATOMIC_MOVE);
+            } catch (final AtomicMoveNotSupportedException e) {
+                Files.move(temporary, target, REPLACE_EXISTING);
+            }
+            return new Published(target, true, changedSections);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to write the output " + target, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            stop();
+            if (!published) {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to delete the temporary output " + temporary, e);
+        }
+    }
+
+    private void handOverFullChunk() throws IOException {
+        if (buffer.length() >= CHUNK_SIZE) {
+            handOver();
+        }
+    }
+
+    private void handOver() throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+
+        if (!buffer.isEmpty()) {
+            put(buffer.toString());
+            handedOver += buffer.length();
+            buffer.setLength(0);
+        }
+    }
+
+    private void put(final String chunk) throws IOException {
+        try {
+            while (!chunks.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+                if (!writer.isAlive()) {
+                    throw failure != null ? failure : new IOException("The output writer stopped unexpectedly");
+                }
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while writing the output " + target);
+        }
+    }
+
+    private void stop() throws IOException {
+        if (stopped) {
+            return;
+        }
+
+        stopped = true;
+        put(END);
+        try {
+            writer.join();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while writing the output " + target);
+        }
+    }
+
+    /* A failure is reported to the thread writing the output the next time it hands over a chunk */
+    private void drain(final BufferedWriter file, final Optional<Reader> previous) {
+        final Comparison comparison = new Comparison(previous);
+        try (file; comparison) {
+            for (String chunk = chunks.take(); !chunk.isEmpty(); chunk = chunks.take()) {
+                if (failure == null) {
+                    try {
+                        file.write(chunk);
+                        comparison.compare(chunk);
+                    } catch (final IOException e) {
+                        failure = e;
+                    }
+                }
+            }
+            identical = comparison.identical();
+        } catch (final IOException e) {
+            if (failure == null) {
+                failure = e;
+            }
+        } catch (final InterruptedException e) {
+            failure = new InterruptedIOException("Interrupted while writing the output " + target);
+        }
+    }
+
+    private List<String> changedSections() throws IOException {
+        final Sections current;
+        try (Reader output = reader(temporary)) {
+            current = Sections.ofOutput(output, marks);
+        }
+
+        if (!Files.isRegularFile(target)) {
+            return Sections.changed(Sections.none(), current);
+        }
+
+        try (Reader output = reader(target)) {
+            return Sections.changed(Sections.ofPreviousOutput(output, current), current);
+        }
+    }
+
+    private static Reader reader(final Path file) throws IOException {
+        /* A previous output that is not valid UTF-8 is different from any new output, rather than a failure */
+        return new InputStreamReader(Files.newInputStream(file), UTF_8);
+    }
+
+    private void ensureNotStopped() throws IOException {
+        if (stopped) {
+            throw new IOException("The output " + target + " was already published or closed");
+        }
+    }
+
+    record Mark(long offset, String title) {}
+
+    public record Published(Path target, boolean changed, List<String> changedSections) {
+
+        public Published {
+            requireNonNull(target);
+            changedSections = List.copyOf(changedSections);
+        }
+    }
+
+    private static final class Comparison implements AutoCloseable {
+
+        private Optional<Reader> previous;
+        private char[] expected = new char[0];
+
+        private Comparison(final Optional<Reader> previous) {
+            this.previous = previous;
+        }
+
+        private void compare(final String chunk) {
+            if (previous.isEmpty()) {
+                return;
+            }
+
+            if (expected.length < chunk.length()) {
+                expected = new char[chunk.length()];
+            }
+
+            try {
+                final Reader reader = previous.get();
+                for (int total = 0; total < chunk.length(); ) {
+                    final int read = reader.read(expected, total, chunk.length() - total);
+                    if (read < 0) {
+                        differs();
+                        return;
+                    }
+                    total += read;
+                }
+
+                if (CharSequence.compare(CharBuffer.wrap(expected, 0, chunk.length()), chunk) != 0) {
+                    differs();
+                }
+            } catch (final IOException e) {
+                differs();
+            }
+        }
+
+        private boolean identical() throws IOException {
+            return previous.isPresent() && previous.get().read() < 0;
+        }
+
+        private void differs() {
+            close();
+            previous = Optional.empty();
+        }
+
+        @Override
+        public void close() {
+            previous.ifPresent(reader -> {
+                try {
+                    reader.close();
+                } catch (final IOException e) {
+                    /* Only read to compare, nothing is lost */
+                }
+            });
+        }
+    }
+
+    /* Empty chunks are never handed over, so an empty chunk marks the end of the output */
+    private static final String END = "";
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final int QUEUE_CAPACITY = 64;
+}
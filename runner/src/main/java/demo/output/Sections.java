@@ -0,0 +1,156 @@
+package demo.output;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/* The previous output was written by another run, so its sections start at the lines that start the sections of the
+   new output */
+final class Sections {
+
+    private final List<Section> sections = new ArrayList<>();
+
+    private Sections() {}
+
+    static Sections none() {
+        return new Sections();
+    }
+
+    static Sections ofOutput(final Reader output, final List<OutputFile.Mark> marks) throws IOException {
+        final Sections sections = new Sections();
+        final Builder builder = sections.new Builder();
+        final ArrayDeque<OutputFile.Mark> pending = new ArrayDeque<>(marks);
+
+        readLines(output, (offset, line) -> {
+            while (!pending.isEmpty() && pending.peek().offset() < offset) {
+                pending.poll();
+            }
+            if (!pending.isEmpty() && pending.peek().offset() == offset) {
+                builder.start(pending.poll().title(), line);
+            }
+            builder.append(line);
+        });
+        builder.finish();
+        return sections;
+    }
+
+    static Sections ofPreviousOutput(final Reader output, final Sections current) throws IOException {
+        final Map<String, String> titles = new HashMap<>();
+        for (final Section section : current.sections) {
+            section.firstLine().ifPresent(line -> titles.putIfAbsent(line, section.title()));
+        }
+
+        final Sections sections = new Sections();
+        final Builder builder = sections.new Builder();
+        readLines(output, (_, line) -> {
+            final String title = titles.get(line);
+            if (title != null) {
+                builder.start(title, line);
+            }
+            builder.append(line);
+        });
+        builder.finish();
+        return sections;
+    }
+
+    /* A removed section is reported as a change to the section before it, as its heading is no longer known */
+    static List<String> changed(final Sections previous, final Sections current) {
+        final Map<Key, byte[]> before = previous.digestsByKey();
+        final Set<String> changed = new LinkedHashSet<>();
+
+        current.digestsByKey().forEach((key, digest) -> {
+            final byte[] previousDigest = before.get(key);
+            if (previousDigest == null || !Arrays.equals(previousDigest, digest)) {
+                changed.add(key.title());
+            }
+        });
+
+        return List.copyOf(changed);
+    }
+
+    /* Sections with the same title are told apart by how many times the title appeared before */
+    private Map<Key, byte[]> digestsByKey() {
+        final Map<String, Integer> occurrences = new HashMap<>();
+        final Map<Key, byte[]> digests = new LinkedHashMap<>();
+        for (final Section section : sections) {
+            final int occurrence = occurrences.merge(section.title(), 1, Integer::sum);
+            digests.put(new Key(section.title(), occurrence), section.digest());
+        }
+        return digests;
+    }
+
+    private static void readLines(final Reader reader, final LineConsumer consumer) throws IOException {
+        final char[] buffer = new char[8192];
+        final StringBuilder line = new StringBuilder();
+        long offset = 0;
+
+        for (int read = reader.read(buffer); read >= 0; read = reader.read(buffer)) {
+            for (int i = 0; i < read; i++) {
+                line.append(buffer[i]);
+                if (buffer[i] == '\n') {
+                    consumer.accept(offset, line.toString());
+                    offset += line.length();
+                    line.setLength(0);
+                }
+            }
+        }
+
+        if (!line.isEmpty()) {
+            consumer.accept(offset, line.toString());
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private record Section(String title, Optional<String> firstLine, byte[] digest) {}
+
+    private record Key(String title, int occurrence) {}
+
+    private interface LineConsumer {
+        void accept(long offset, String line) throws IOException;
+    }
+
+    private final class Builder {
+
+        private String title = PREAMBLE;
+        private Optional<String> firstLine = Optional.empty();
+        private MessageDigest digest = newDigest();
+
+        private void start(final String title, final String firstLine) {
+            finish();
+            this.title = title;
+            this.firstLine = Optional.of(firstLine);
+            this.digest = newDigest();
+        }
+
+        private void append(final String line) {
+            digest.update(line.getBytes(UTF_8));
+        }
+
+        private void finish() {
+            sections.add(new Section(title, firstLine, digest.digest()));
+        }
+    }
+
+    /* The title of the output before the first section, such as the header and the introduction */
+    static final String PREAMBLE = "(before the first heading)";
+}
@@ -0,0 +1,187 @@
+package demo.shell;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.OptionalInt;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+public final class BackgroundProcess {
+
+    private final String name;
+    private final Process process;
+    private final CapturedOutput output;
+    private final ProcessReaper reaper;
+    private final Thread reader;
+
+    private long lineCount;
+    private long byteCount;
+    private long shownLines;
+    private long shownBytes;
+    private boolean ended;
+
+    private BackgroundProcess(final String name,
+                              final Process process,
+                              final CapturedOutput output,
+                              final ProcessReaper reaper) {
+        this.name = name;
+        this.process = process;
+        this.output = output;
+        this.reaper = reaper;
+        this.reader = Thread.ofVirtual()
+                .name("sw-background-" + name)
+                .start(this::capture);
+    }
+
+    static BackgroundProcess start(final String name,
+                                   final ProcessBuilder builder,
+                                   final CapturedOutput output,
+                                   final ProcessReaper reaper) {
+        requireNonNull(name);
+        requireNonNull(output);
+        requireNonNull(reaper);
+
+        try {
+            final Process process = builder
+                    .redirectErrorStream(true)
+                    .start();
+            /* Nothing is written to the process, which reads the end of its input straight away instead of waiting */
+            process.getOutputStream().close();
+            return new BackgroundProcess(name, process, output, reaper);
+        } catch (final IOException e) {
+            output.close();
+            throw new UncheckedIOException("Failed to start the background process " + name, e);
+        }
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public boolean isAlive() {
+        return process.isAlive();
+    }
+
+    public boolean awaitLine(final Pattern pattern, final Duration timeout) {
+        final long deadline = System.nanoTime() + timeout.toNanos();
+        long scanned;
+        long scannedBytes;
+        synchronized (this) {
+            scanned = shownLines;
+            scannedBytes = shownBytes;
+        }
+
+        while (true) {
+            final long available;
+            final long availableBytes;
+            synchronized (this) {
+                while (lineCount == scanned) {
+                    final long remaining = deadline - System.nanoTime();
+                    if (ended || remaining <= 0) {
+                        return false;
+                    }
+                    await(remaining);
+                }
+                available = lineCount;
+                availableBytes = byteCount;
+            }
+
+            try (Stream<String> lines = output.lines(scannedBytes)) {
+                if (lines.limit(available - scanned).anyMatch(line -> pattern.matcher(line).find())) {
+                    return true;
+                }
+            }
+            scanned = available;
+            scannedBytes = availableBytes;
+        }
+    }
+
+    public OptionalInt awaitExit(final Duration timeout) {
+        try {
+            if (!process.waitFor(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                return OptionalInt.empty();
+            }
+
+            reader.join(READER_GRACE_PERIOD);
+            return OptionalInt.of(process.exitValue());
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the background process " + name, e);
+        }
+    }
+
+    public int stop() {
+        if (process.isAlive()) {
+            reaper.terminate(process);
+        }
+
+        try {
+            process.waitFor();
+            reader.join(READER_GRACE_PERIOD);
+            return process.exitValue();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while stopping the background process " + name, e);
+        }
+    }
+
+    public Stream<String> unshownLines() {
+        final long from;
+        final long fromByte;
+        final long to;
+        synchronized (this) {
+            from = shownLines;
+            fromByte = shownBytes;
+            to = lineCount;
+            shownLines = lineCount;
+            shownBytes = byteCount;
+        }
+
+        return output.lines(fromByte)
+                .limit(to - from);
+    }
+
+    void close() {
+        output.close();
+    }
+
+    private void capture() {
+        try (BufferedReader lines = new BufferedReader(new InputStreamReader(process.getInputStream(), UTF_8))) {
+            for (String line; (line = lines.readLine()) != null; ) {
+                output.appendLine(line);
+                synchronized (this) {
+                    lineCount++;
+                    byteCount = output.size();
+                    notifyAll();
+                }
+            }
+        } catch (final IOException _) {
+            /* The pipe is closed once the process is stopped */
+        } finally {
+            synchronized (this) {
+                ended = true;
+                notifyAll();
+            }
+        }
+    }
+
+    private void await(final long nanos) {
+        try {
+            TimeUnit.NANOSECONDS.timedWait(this, nanos);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the background process " + name, e);
+        }
+    }
+
+    /* A process started by the background process may keep the pipe open after it is stopped */
+    private static final Duration READER_GRACE_PERIOD = Duration.ofSeconds(1);
+}
+
@@ -0,0 +1,86 @@
+package demo.shell;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static java.util.Objects.requireNonNull;
+
+public final class BackgroundProcesses implements AutoCloseable {
+
+    private final long spillThreshold;
+    private final ScratchDirectory scratch;
+    private final ProcessReaper reaper;
+    private final Path directory;
+    private final Map<String, BackgroundProcess> processes = new ConcurrentHashMap<>();
+    private final Queue<BackgroundProcess> stopped = new ConcurrentLinkedQueue<>();
+
+    public BackgroundProcesses(final long spillThreshold,
+                               final ScratchDirectory scratch,
+                               final ProcessReaper reaper,
+                               final Path directory) {
+        this.spillThreshold = spillThreshold;
+        this.scratch = requireNonNull(scratch);
+        this.reaper = requireNonNull(reaper);
+        this.directory = directory.toAbsolutePath();
+    }
+
+    /* A name is only used by one running process at a time, a process that exited makes room for a new one */
+    public BackgroundProcess start(final String name, final String script, final Optional<Path> workingDir) {
+        requireNonNull(name);
+        requireNonNull(script);
+
+        return processes.compute(name, (_, running) -> {
+            if (running != null && running.isAlive()) {
+                throw new IllegalStateException("The background process " + name + " is already running");
+            }
+            if (running != null) {
+                running.close();
+            }
+
+            final ProcessBuilder builder = new ProcessBuilder("/bin/sh", "-c", script);
+            builder.directory(workingDir.map(directory::resolve).orElse(directory).toFile());
+            return BackgroundProcess.start(name, builder, new CapturedOutput(spillThreshold, scratch), reaper);
+        });
+    }
+
+    public Optional<BackgroundProcess> find(final String name) {
+        return Optional.ofNullable(processes.get(requireNonNull(name)));
+    }
+
+    /* Its output is kept until the run is over, to be shown once it stopped */
+    public Optional<BackgroundProcess> stop(final String name) {
+        final BackgroundProcess process = processes.remove(requireNonNull(name));
+        if (process == null) {
+            return Optional.empty();
+        }
+
+        stopped.add(process);
+        process.stop();
+        return Optional.of(process);
+    }
+
+    public void stop(final BackgroundProcess process) {
+        if (processes.remove(process.name(), process)) {
+            try {
+                process.stop();
+            } finally {
+                process.close();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        for (final BackgroundProcess process : List.copyOf(processes.values())) {
+            stop(process);
+        }
+        for (BackgroundProcess process; (process = stopped.poll()) != null; ) {
+            process.close();
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package demo.shell;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+/* When limited, only the first lines are kept this way, the last ones are kept in a ring and the lines in between
+   are dropped */
+public final class CapturedOutput implements ShellOutput {
+
+    private final long spillThreshold;
+    private final ScratchDirectory scratch;
+    private final OutputStream tee;
+    private final OutputLimit limit;
+    private final ByteArrayOutputStream partialLine = new ByteArrayOutputStream();
+    private final ArrayDeque<String> tail = new ArrayDeque<>();
+
+    private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+    private int count;
+    private long size;
+    private long lineCount;
+    private long droppedLines;
+    private long omittedFromLine;
+    private Path spillFile;
+    private OutputStream spillStream;
+
+    public CapturedOutput(final long spillThreshold, final ScratchDirectory scratch) {
+        this(spillThreshold, scratch, OutputStream.nullOutputStream(), OutputLimit.none());
+    }
+
+    public CapturedOutput(final long spillThreshold,
+                          final ScratchDirectory scratch,
+                          final OutputStream tee,
+                          final OutputLimit limit) {
+        if (spillThreshold < 0) {
+            throw new IllegalArgumentException("The spill threshold cannot be negative");
+        }
+
+        this.spillThreshold = spillThreshold;
+        this.scratch = requireNonNull(scratch);
+        this.tee = requireNonNull(tee);
+        this.limit = requireNonNull(limit);
+    }
+
+    public void capture(final InputStream input) {
+        final byte[] chunk = new byte[8192];
+        try {
+            for (int read; (read = input.read(chunk)) != -1; ) {
+                write(chunk, 0, read);
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to capture the commands output", e);
+        }
+    }
+
+    public void appendLine(final String line) {
+        final byte[] bytes = (line + '\n').getBytes(UTF_8);
+        write(bytes, 0, bytes.length);
+    }
+
+    public synchronized long size() {
+        return size;
+    }
+
+    public synchronized boolean hasSpilled() {
+        return spillFile != null;
+    }
+
+    public synchronized long droppedLines() {
+        completePartialLine();
+        return droppedLines;
+    }
+
+    @Override
+    public synchronized Stream<String> lines() {
+        completePartialLine();
+
+        final Stream<String> kept = keptLines();
+        if (!limit.isLimited()) {
+            return kept;
+        }
+
+        final Stream<String> dropped = droppedLines == 0
+                ? Stream.empty()
+                : Stream.of("[... " + droppedLines + " lines omitted, " + size + " bytes of output in total ...]");
+        return Stream.of(kept, dropped, List.copyOf(tail).stream())
+                .flatMap(Function.identity());
+    }
+
+    /* Output that is not limited is kept whole, and can be read on from any byte starting a line */
+    public synchronized Stream<String> lines(final long from) {
+        if (limit.isLimited()) {
+            throw new IllegalStateException("Only the output that is not limited can be read from a byte on");
+        }
+
+        try {
+            if (spillFile == null) {
+                final int start = (int) Math.min(from, count);
+                return new BufferedReader(new InputStreamReader(
+                        new ByteArrayInputStream(buffer, start, count - start), UTF_8)).lines();
+            }
+
+            spillStream.flush();
+            final BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    Channels.newInputStream(Files.newByteChannel(spillFile).position(from)), UTF_8));
+            return reader.lines().onClose(() -> {
+                try {
+                    reader.close();
+                } catch (final IOException e) {
+                    throw new UncheckedIOException("Failed to close the commands output file " + spillFile, e);
+                }
+            });
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to read the commands output", e);
+        }
+    }
+
+    private Stream<String> keptLines() {
+        try {
+            if (spillFile == null) {
+                return new BufferedReader(new InputStreamReader(new ByteArrayInputStream(buffer, 0, count), UTF_8)).lines();
+            }
+
+            spillStream.flush();
+            return Files.lines(spillFile, UTF_8);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to read the commands output", e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        buffer = EMPTY;
+        count = 0;
+        tail.clear();
+
+        if (spillFile == null) {
+            return;
+        }
+
+        try {
+            spillStream.close();
+            Files.deleteIfExists(spillFile);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to delete the commands output file " + spillFile, e);
+        } finally {
+            spillFile = null;
+            spillStream = null;
+        }
+    }
+
+    private synchronized void write(final byte[] bytes, final int offset, final int length) {
+        size += length;
+
+        try {
+            tee.write(bytes, offset, length);
+            tee.flush();
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to copy the commands output", e);
+        }
+
+        if (!limit.isLimited()) {
+            keep(bytes, offset, length);
+            return;
+        }
+
+        /* The output is split into lines, as only whole lines are kept */
+        int start = offset;
+        for (int i = offset; i < offset + length; i++) {
+            if (bytes[i] == '\n') {
+                appendToLine(bytes, start, i - start);
+                completeLine();
+                start = i + 1;
+            }
+        }
+        appendToLine(bytes, start, offset + length - start);
+    }
+
+    /* A line without a newline, such as a progress bar redrawn with '\r', could otherwise fill the memory */
+    private void appendToLine(final byte[] bytes, final int offset, final int length) {
+        final int kept = Math.min(length, MAX_LINE_LENGTH - partialLine.size());
+        partialLine.write(bytes, offset, kept);
+        omittedFromLine += length - kept;
+    }
+
+    private void completePartialLine() {
+        if (partialLine.size() > 0 || omittedFromLine > 0) {
+            completeLine();
+        }
+    }
+
+    private void completeLine() {
+        lineCount++;
+
+        if (omittedFromLine > 0) {
+            partialLine.writeBytes((" [... " + omittedFromLine + " bytes of this line omitted ...]").getBytes(UTF_8));
+            omittedFromLine = 0;
+        }
+
+        if (lineCount <= limit.headLines()) {
+            partialLine.write('\n');
+            final byte[] line = partialLine.toByteArray();
+            keep(line, 0, line.length);
+        } else if (limit.tailLines() > 0) {
+            tail.addLast(withoutCarriageReturn(partialLine.toString(UTF_8)));
+            if (tail.size() > limit.tailLines()) {
+                tail.removeFirst();
+                droppedLines++;
+            }
+        } else {
+            droppedLines++;
+        }
+
+        partialLine.reset();
+    }
+
+    private static String withoutCarriageReturn(final String line) {
+        return line.endsWith("\r") ? line.substring(0, line.length() - 1) : line;
+    }
+
+    private void keep(final byte[] bytes, final int offset, final int length) {
+        try {
+            if (spillFile == null && count + (long) length > spillThreshold) {
+                spill();
+            }
+
+            if (spillFile != null) {
+                spillStream.write(bytes, offset, length);
+                return;
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to write the commands output to file", e);
+        }
+
+        if (count + length > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, count + length));
+        }
+        System.arraycopy(bytes, offset, buffer, count, length);
+        count += length;
+    }
+
+    private void spill() throws IOException {
+        spillFile = scratch.newFile("output-", ".out");
+        spillStream = new BufferedOutputStream(Files.newOutputStream(spillFile));
+        spillStream.write(buffer, 0, count);
+        buffer = EMPTY;
+        count = 0;
+    }
+
+    public static final long DEFAULT_SPILL_THRESHOLD = 1024 * 1024;
+
+    static final int MAX_LINE_LENGTH = 64 * 1024;
+
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+    private static final byte[] EMPTY = new byte[0];
+}
@@ -0,0 +1,81 @@
+package demo.shell;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+final class ForkedProcess {
+
+    static ShellScriptResult run(final ProcessBuilder builder,
+                                 final Optional<String> input,
+                                 final Duration timeout,
+                                 final CapturedOutput output,
+                                 final ProcessReaper reaper) {
+        try {
+            final long started = System.nanoTime();
+            final Process process = builder
+                    .redirectErrorStream(true)
+                    .start();
+            final long spawned = System.nanoTime();
+
+            /* The output is read while the process is running, otherwise the process blocks once the pipe is full */
+            final Thread reader = Thread.ofVirtual()
+                    .name("sw-output-reader")
+                    .start(() -> {
+                        try {
+                            output.capture(process.getInputStream());
+                        } catch (final UncheckedIOException _) {
+                            /* The pipe was closed while a process left running in the background kept it open */
+                        }
+                    });
+
+            writeInput(process, input);
+
+            final boolean finished = process.waitFor(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            if (!finished) {
+                reaper.terminate(process);
+                process.waitFor();
+                reader.join(READER_GRACE_PERIOD);
+                return new ShellScriptResult(-1, output, ShellTimings.between(started, spawned, System.nanoTime()));
+            }
+
+            /* A process the script started in the background, such as a server, may keep the pipe open for good */
+            if (!reader.join(READER_GRACE_PERIOD)) {
+                process.getInputStream().close();
+                reader.join(READER_GRACE_PERIOD);
+            }
+            return new ShellScriptResult(process.exitValue(), output,
+                    ShellTimings.between(started, spawned, System.nanoTime()));
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            output.close();
+            throw new RuntimeException("Interrupted while running the commands", e);
+        } catch (final IOException e) {
+            output.close();
+            throw new UncheckedIOException("Failed to run the commands", e);
+        }
+    }
+
+    private static void writeInput(final Process process, final Optional<String> input) throws IOException {
+        try (OutputStream stdin = process.getOutputStream()) {
+            if (input.isPresent()) {
+                stdin.write(input.get().getBytes(UTF_8));
+            }
+        } catch (final IOException e) {
+            /* The process exited before reading all of its input, which its exit code reflects */
+            if (process.isAlive()) {
+                throw e;
+            }
+        }
+    }
+
+    private ForkedProcess() {}
+
+    /* A process started in the background by the script may keep the pipe open after the script is stopped */
+    private static final Duration READER_GRACE_PERIOD = Duration.ofSeconds(1);
+}
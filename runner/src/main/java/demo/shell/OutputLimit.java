@@ -0,0 +1,20 @@
+package demo.shell;
+
+public record OutputLimit(int headLines, int tailLines) {
+
+    public OutputLimit {
+        if (headLines < 0 || tailLines < 0) {
+            throw new IllegalArgumentException("The number of lines to keep cannot be negative");
+        }
+    }
+
+    public static OutputLimit none() {
+        return NONE;
+    }
+
+    public boolean isLimited() {
+        return headLines != Integer.MAX_VALUE;
+    }
+
+    private static final OutputLimit NONE = new OutputLimit(Integer.MAX_VALUE, 0);
+}
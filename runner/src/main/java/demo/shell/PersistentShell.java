@@ -0,0 +1,244 @@
+package demo.shell;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+/* Each script runs in a subshell, so that set -e or an exit ends the script and not the session, and hands its state
+   back to the session when it exits.  The state is what /bin/sh can save in a standard way, the exported variables and
+   the working directory, so the variables that are not exported and the functions stay within the script. */
+public final class PersistentShell implements Shell {
+
+    private final long spillThreshold;
+    private final ScratchDirectory scratch;
+    private final ProcessReaper reaper;
+    private final Path directory;
+    private final String marker = "__sw_" + UUID.randomUUID().toString().replace("-", "") + "__";
+
+    private Process process;
+    private Writer stdin;
+    private BufferedReader stdout;
+    private Path workingDir;
+    private Path state;
+
+    public PersistentShell(final long spillThreshold,
+                           final ScratchDirectory scratch,
+                           final ProcessReaper reaper,
+                           final Path directory) {
+        this.spillThreshold = spillThreshold;
+        this.scratch = requireNonNull(scratch);
+        this.reaper = requireNonNull(reaper);
+        this.directory = directory.toAbsolutePath();
+    }
+
+    @Override
+    public synchronized ShellScriptResult run(final String script, final Duration timeout, final OutputStream tee,
+                                                 final OutputLimit limit) {
+        final long started = System.nanoTime();
+        start();
+        final long spawned = System.nanoTime();
+
+        final CapturedOutput output = new CapturedOutput(spillThreshold, scratch, tee, limit);
+        final FutureTask<Integer> reader = new FutureTask<>(() -> readUntilMarker(output));
+        Thread.ofVirtual().name("sw-shell-reader").start(reader);
+
+        try {
+            send(wrap(script));
+            final int exitCode = reader.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            return new ShellScriptResult(exitCode, output, ShellTimings.between(started, spawned, System.nanoTime()));
+        } catch (final TimeoutException e) {
+            stop();
+            awaitQuietly(reader);
+            return new ShellScriptResult(-1, output, ShellTimings.between(started, spawned, System.nanoTime()));
+        } catch (final ExecutionException e) {
+            stop();
+            output.close();
+            throw new UncheckedIOException("Failed to read the commands output", asIOException(e.getCause()));
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stop();
+            output.close();
+            throw new RuntimeException("Interrupted while running the commands", e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (process == null) {
+            return;
+        }
+
+        try {
+            send("exit\n");
+            process.waitFor(1, TimeUnit.SECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (final UncheckedIOException _) {
+            /* The shell is already gone */
+        } finally {
+            stop();
+        }
+    }
+
+    private void start() {
+        if (process != null && process.isAlive()) {
+            return;
+        }
+
+        stop();
+
+        try {
+            final ProcessBuilder builder = new ProcessBuilder("/bin/sh")
+                    .redirectErrorStream(true);
+            builder.directory(lastKnownWorkingDir().orElse(directory).toFile());
+
+            process = builder.start();
+            stdin = new OutputStreamWriter(process.getOutputStream(), UTF_8);
+            stdout = new BufferedReader(new InputStreamReader(process.getInputStream(), UTF_8));
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to start the shell", e);
+        }
+
+        if (state == null) {
+            state = scratch.newFile("session-", ".sh");
+        }
+        send(session());
+    }
+
+    private void stop() {
+        if (process == null) {
+            return;
+        }
+
+        reaper.terminate(process);
+        try {
+            process.waitFor();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        process = null;
+        stdin = null;
+        stdout = null;
+    }
+
+    /* The state is sourced through command, so that a variable the session cannot set does not take the session down */
+    private String session() {
+        final String file = quote(state.toString());
+        final String directory = quote(state + ".dir");
+        return "__sw_save() {\n"
+                + "  set +e\n"
+                + "  export -p > " + file + "\n"
+                + "  pwd > " + directory + "\n"
+                + "  exit \"$1\"\n"
+                + "}\n"
+                + "__sw_restore() {\n"
+                + "  command . " + file + " 2> /dev/null\n"
+                + "  IFS= read -r __sw_dir < " + directory + " && cd -- \"$__sw_dir\"\n"
+                + "}\n";
+    }
+
+    private String wrap(final String script) {
+        /* The standard input is detached from the script, otherwise a command reading from it would consume the
+           scripts that follow */
+        return "(\n"
+                + "trap '__sw_save \"$?\"' EXIT\n"
+                + "{\n"
+                + script
+                + "\n}\n"
+                + ") < /dev/null\n"
+                + "__sw_status=$?\n"
+                + "__sw_restore\n"
+                + "printf '\\n%s %d %s\\n' '" + marker + "' \"$__sw_status\" \"$(pwd)\"\n";
+    }
+
+    private static String quote(final String text) {
+        return "'" + text.replace("'", "'\\''") + "'";
+    }
+
+    private void send(final String text) {
+        try {
+            stdin.write(text);
+            stdin.flush();
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to send the commands to the shell", e);
+        }
+    }
+
+    private int readUntilMarker(final CapturedOutput output) throws IOException, InterruptedException {
+        final BufferedReader reader = stdout;
+        final Process current = process;
+
+        /* Empty lines are held back, as the marker is printed after a new line */
+        int pendingEmptyLines = 0;
+        for (String line; (line = reader.readLine()) != null; ) {
+            final int index = line.indexOf(marker);
+            if (index < 0) {
+                if (line.isEmpty()) {
+                    pendingEmptyLines++;
+                    continue;
+                }
+
+                appendEmptyLines(output, pendingEmptyLines);
+                pendingEmptyLines = 0;
+                output.appendLine(line);
+                continue;
+            }
+
+            appendEmptyLines(output, pendingEmptyLines - 1);
+
+            final String[] parts = line.substring(index + marker.length()).trim().split(" ", 2);
+            if (parts.length == 2) {
+                workingDir = Path.of(parts[1]);
+            }
+            return Integer.parseInt(parts[0]);
+        }
+
+        appendEmptyLines(output, pendingEmptyLines);
+
+        /* The shell exited before reaching the marker, such as when it was stopped */
+        return current.waitFor();
+    }
+
+    private static void appendEmptyLines(final CapturedOutput output, final int count) {
+        for (int i = 0; i < count; i++) {
+            output.appendLine("");
+        }
+    }
+
+    private Optional<Path> lastKnownWorkingDir() {
+        return Optional.ofNullable(workingDir)
+                .filter(Files::isDirectory);
+    }
+
+    private static void awaitQuietly(final FutureTask<Integer> reader) {
+        try {
+            reader.get(1, TimeUnit.SECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (final ExecutionException | TimeoutException _) {
+            /* The output read so far is still returned */
+        }
+    }
+
+    private static IOException asIOException(final Throwable cause) {
+        return cause instanceof IOException e
+                ? e
+                : new IOException(cause);
+    }
+}
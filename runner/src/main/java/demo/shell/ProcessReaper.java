@@ -0,0 +1,84 @@
+package demo.shell;
+
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static java.util.Objects.requireNonNull;
+
+/* The descendants are collected before the process is stopped, as they can no longer be found once their parent is
+   gone */
+public final class ProcessReaper {
+
+    private final Duration gracePeriod;
+    private final AtomicLong reaped = new AtomicLong();
+
+    public ProcessReaper(final Duration gracePeriod) {
+        this.gracePeriod = requireNonNull(gracePeriod);
+
+        if (gracePeriod.isNegative()) {
+            throw new IllegalArgumentException("The grace period cannot be negative");
+        }
+    }
+
+    public void terminate(final Process process) {
+        terminate(process.toHandle());
+    }
+
+    public void terminate(final ProcessHandle root) {
+        final Set<ProcessHandle> descendants = new LinkedHashSet<>(aliveDescendants(root));
+        final List<ProcessHandle> tree = Stream.concat(Stream.of(root), descendants.stream()).toList();
+
+        tree.forEach(ProcessHandle::destroy);
+        if (!awaitExit(tree, gracePeriod)) {
+            /* Processes may have started more processes while they were shutting down */
+            final List<ProcessHandle> remaining = tree.stream()
+                    .filter(ProcessHandle::isAlive)
+                    .flatMap(handle -> Stream.concat(Stream.of(handle), aliveDescendants(handle).stream()))
+                    .distinct()
+                    .toList();
+            descendants.addAll(remaining.stream().filter(handle -> !handle.equals(root)).toList());
+            remaining.forEach(ProcessHandle::destroyForcibly);
+            awaitExit(remaining, FORCED_EXIT_TIMEOUT);
+        }
+
+        reaped.addAndGet(descendants.size());
+    }
+
+    public long reaped() {
+        return reaped.get();
+    }
+
+    private static List<ProcessHandle> aliveDescendants(final ProcessHandle handle) {
+        return handle.descendants()
+                .filter(ProcessHandle::isAlive)
+                .toList();
+    }
+
+    private static boolean awaitExit(final List<ProcessHandle> handles, final Duration timeout) {
+        final CompletableFuture<?>[] exits = handles.stream()
+                .map(ProcessHandle::onExit)
+                .toArray(CompletableFuture[]::new);
+
+        try {
+            CompletableFuture.allOf(exits).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            return true;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (final ExecutionException | TimeoutException _) {
+            return false;
+        }
+    }
+
+    public static final Duration DEFAULT_GRACE_PERIOD = Duration.ofSeconds(5);
+
+    private static final Duration FORCED_EXIT_TIMEOUT = Duration.ofSeconds(5);
+}
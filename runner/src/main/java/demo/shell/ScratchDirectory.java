@@ -0,0 +1,119 @@
+package demo.shell;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/* Directories left behind by runs that were killed are removed when a new one is created */
+public final class ScratchDirectory implements AutoCloseable {
+
+    private final Path base;
+    private Path directory;
+
+    private ScratchDirectory(final Path base) {
+        this.base = base;
+    }
+
+    public static ScratchDirectory create() {
+        return new ScratchDirectory(findBase());
+    }
+
+    public synchronized Path newFile(final String prefix, final String suffix) {
+        try {
+            return isPosix()
+                    ? Files.createTempFile(directory(), prefix, suffix, OWNER_ONLY)
+                    : Files.createTempFile(directory(), prefix, suffix);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to create a file in the scratch directory", e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (directory != null) {
+            deleteRecursively(directory);
+            directory = null;
+        }
+    }
+
+    private Path directory() throws IOException {
+        if (directory == null) {
+            deleteLeftovers(base);
+            directory = isPosix()
+                    ? Files.createTempDirectory(base, prefix(ProcessHandle.current().pid()), OWNER_ONLY)
+                    : Files.createTempDirectory(base, prefix(ProcessHandle.current().pid()));
+        }
+
+        return directory;
+    }
+
+    private static Path findBase() {
+        /* Prefer the per user runtime directory and then shared memory, as both are usually backed by tmpfs */
+        return Stream.of(Optional.ofNullable(System.getenv("XDG_RUNTIME_DIR")), Optional.of("/dev/shm"))
+                .flatMap(Optional::stream)
+                .map(Path::of)
+                .filter(path -> Files.isDirectory(path) && Files.isWritable(path))
+                .findFirst()
+                .orElseGet(() -> Path.of(System.getProperty("java.io.tmpdir")));
+    }
+
+    private static void deleteLeftovers(final Path base) {
+        try (Stream<Path> paths = Files.list(base)) {
+            paths.filter(ScratchDirectory::isLeftover)
+                    .forEach(ScratchDirectory::deleteRecursively);
+        } catch (final IOException | UncheckedIOException _) {
+            /* Leftovers are only removed on a best effort basis */
+        }
+    }
+
+    private static boolean isLeftover(final Path path) {
+        final String name = path.getFileName().toString();
+        if (!name.startsWith(PREFIX) || !Files.isDirectory(path) || !Files.isWritable(path)) {
+            return false;
+        }
+
+        /* The process id alone is not enough, as runs in other containers may share the same base directory */
+        final String[] parts = name.substring(PREFIX.length()).split("-", 2);
+        try {
+            return ProcessHandle.of(Long.parseLong(parts[0])).isEmpty()
+                    && Files.getLastModifiedTime(path).toInstant().isBefore(Instant.now().minus(LEFTOVER_AGE));
+        } catch (final NumberFormatException | IOException _) {
+            return false;
+        }
+    }
+
+    private static void deleteRecursively(final Path path) {
+        try (Stream<Path> paths = Files.walk(path)) {
+            for (final Path entry : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(entry);
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to delete the scratch directory " + path, e);
+        }
+    }
+
+    private static String prefix(final long pid) {
+        return PREFIX + pid + '-';
+    }
+
+    private static boolean isPosix() {
+        return FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+    }
+
+    private static final String PREFIX = "sw-scratch-";
+    private static final Duration LEFTOVER_AGE = Duration.ofHours(1);
+
+    private static final FileAttribute<Set<PosixFilePermission>> OWNER_ONLY =
+            PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------"));
+}
@@ -0,0 +1,73 @@
+package demo.shell;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+/* The file is passed to the shell rather than executed, as the scratch directory may be mounted noexec, such as
+   /dev/shm */
+public final class ScriptFileShell implements Shell {
+
+    private final long spillThreshold;
+    private final ScratchDirectory scratch;
+    private final ProcessReaper reaper;
+    private final Path directory;
+
+    public ScriptFileShell(final long spillThreshold,
+                           final ScratchDirectory scratch,
+                           final ProcessReaper reaper,
+                           final Path directory) {
+        this.spillThreshold = spillThreshold;
+        this.scratch = requireNonNull(scratch);
+        this.reaper = requireNonNull(reaper);
+        this.directory = directory.toAbsolutePath();
+    }
+
+    @Override
+    public ShellScriptResult run(final String script, final Duration timeout, final OutputStream tee,
+                                 final OutputLimit limit) {
+        final Path file = writeShellScriptToFile(script);
+        try {
+            return runShellScript(file, timeout, tee, limit);
+        } finally {
+            deleteQuietly(file);
+        }
+    }
+
+    private Path writeShellScriptToFile(final String script) {
+        final Path path = scratch.newFile("command-", ".sh");
+
+        try {
+            Files.writeString(path, script, UTF_8);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to write script to file", e);
+        }
+
+        return path;
+    }
+
+    private ShellScriptResult runShellScript(final Path script,
+                                             final Duration timeout,
+                                             final OutputStream tee,
+                                             final OutputLimit limit) {
+        final ProcessBuilder builder = new ProcessBuilder("/bin/sh", script.toAbsolutePath().toString())
+                .directory(directory.toFile());
+        final CapturedOutput output = new CapturedOutput(spillThreshold, scratch, tee, limit);
+        return ForkedProcess.run(builder, Optional.empty(), timeout, output, reaper);
+    }
+
+    private static void deleteQuietly(final Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (final IOException _) {
+            /* The scratch directory is deleted at the end of the run anyway */
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package demo.shell;
+
+import java.io.OutputStream;
+import java.time.Duration;
+
+public interface Shell extends AutoCloseable {
+
+    default ShellScriptResult run(final String script, final Duration timeout) {
+        return run(script, timeout, OutputStream.nullOutputStream(), OutputLimit.none());
+    }
+
+    /* Only the lines within the limit are kept, while the tee receives the whole output as it is produced */
+    ShellScriptResult run(String script, Duration timeout, OutputStream tee, OutputLimit limit);
+
+    @Override
+    default void close() {}
+}
@@ -0,0 +1,40 @@
+package demo.shell;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+public enum ShellMode {
+    SCRIPT_FILE,
+    STDIN,
+    PERSISTENT,
+    ;
+
+    public Shell create(final long spillThreshold,
+                        final ScratchDirectory scratch,
+                        final ProcessReaper reaper,
+                        final Path directory) {
+        return switch (this) {
+            case SCRIPT_FILE -> new ScriptFileShell(spillThreshold, scratch, reaper, directory);
+            case STDIN -> new StdinShell(spillThreshold, scratch, reaper, directory);
+            case PERSISTENT -> new PersistentShell(spillThreshold, scratch, reaper, directory);
+        };
+    }
+
+    public String toOptionValue() {
+        return name().toLowerCase().replace('_', '-');
+    }
+
+    public static ShellMode parse(final String value) {
+        return Arrays.stream(values())
+                .filter(mode -> mode.toOptionValue().equalsIgnoreCase(value))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown shell mode '" + value + "', expected one of " + optionValues()));
+    }
+
+    public static String optionValues() {
+        return Arrays.stream(values())
+                .map(ShellMode::toOptionValue)
+                .collect(Collectors.joining(", "));
+    }
+}
@@ -0,0 +1,11 @@
+package demo.shell;
+
+import java.util.stream.Stream;
+
+public interface ShellOutput extends AutoCloseable {
+
+    Stream<String> lines();
+
+    @Override
+    default void close() {}
+}
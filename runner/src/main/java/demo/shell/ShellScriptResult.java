@@ -0,0 +1,30 @@
+package demo.shell;
+
+import java.util.stream.Stream;
+
+import static java.util.Objects.requireNonNull;
+
+public record ShellScriptResult(int exitCode, ShellOutput output, ShellTimings timings) implements AutoCloseable {
+
+    public ShellScriptResult {
+        requireNonNull(output);
+        requireNonNull(timings);
+    }
+
+    public ShellScriptResult(final int exitCode, final ShellOutput output) {
+        this(exitCode, output, ShellTimings.none());
+    }
+
+    public Stream<String> readOutput() {
+        return output.lines();
+    }
+
+    public boolean hasFailed() {
+        return exitCode != 0;
+    }
+
+    @Override
+    public void close() {
+        output.close();
+    }
+}
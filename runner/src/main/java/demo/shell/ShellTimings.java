@@ -0,0 +1,25 @@
+package demo.shell;
+
+import java.time.Duration;
+
+import static java.util.Objects.requireNonNull;
+
+public record ShellTimings(Duration spawn, Duration execute) {
+
+    public ShellTimings {
+        requireNonNull(spawn);
+        requireNonNull(execute);
+    }
+
+    public static ShellTimings none() {
+        return NONE;
+    }
+
+    static ShellTimings between(final long startedNanos, final long spawnedNanos, final long finishedNanos) {
+        return new ShellTimings(
+                Duration.ofNanos(spawnedNanos - startedNanos),
+                Duration.ofNanos(finishedNanos - spawnedNanos));
+    }
+
+    private static final ShellTimings NONE = new ShellTimings(Duration.ZERO, Duration.ZERO);
+}
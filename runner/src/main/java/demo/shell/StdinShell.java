@@ -0,0 +1,41 @@
+package demo.shell;
+
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+
+import static java.util.Objects.requireNonNull;
+
+public final class StdinShell implements Shell {
+
+    private final long spillThreshold;
+    private final ScratchDirectory scratch;
+    private final ProcessReaper reaper;
+    private final Path directory;
+
+    public StdinShell(final long spillThreshold,
+                      final ScratchDirectory scratch,
+                      final ProcessReaper reaper,
+                      final Path directory) {
+        this.spillThreshold = spillThreshold;
+        this.scratch = requireNonNull(scratch);
+        this.reaper = requireNonNull(reaper);
+        this.directory = directory.toAbsolutePath();
+    }
+
+    @Override
+    public ShellScriptResult run(final String script, final Duration timeout, final OutputStream tee,
+                                 final OutputLimit limit) {
+        final ProcessBuilder builder = new ProcessBuilder("/bin/sh", "-s")
+                .directory(directory.toFile());
+        return ForkedProcess.run(builder, Optional.of(wrap(script)), timeout,
+                new CapturedOutput(spillThreshold, scratch, tee, limit), reaper);
+    }
+
+    private static String wrap(final String script) {
+        /* The shell reads the whole group before running it, which keeps commands reading from the standard input
+           from consuming the rest of the script */
+        return "{\n" + script + "\n} < /dev/null\n";
+    }
+}
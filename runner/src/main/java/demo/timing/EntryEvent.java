@@ -0,0 +1,43 @@
+package demo.timing;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("demo.Entry")
+@Label("Playbook Entry")
+@Category("Sociable Weaver")
+@Description("Runs the run or the finally block of a playbook entry")
+public final class EntryEvent extends jdk.jfr.Event {
+
+    @Label("Index")
+    int index;
+
+    @Label("Type")
+    String type;
+
+    @Label("Heading")
+    @Description("The title of the last heading before the entry")
+    String heading;
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Exit Code")
+    @Description("The exit code of the last script the entry ran, or -1 when it did not run any")
+    int exitCode;
+
+    @Label("Spawn Time")
+    @Timespan
+    long spawnTime;
+
+    @Label("Execute Time")
+    @Timespan
+    long executeTime;
+
+    @Label("Output Read-Back Time")
+    @Timespan
+    long readBackTime;
+}
@@ -0,0 +1,38 @@
+package demo.timing;
+
+import java.time.Duration;
+import java.util.OptionalInt;
+
+public final class EntryTimer {
+
+    private Duration spawn = Duration.ZERO;
+    private Duration execute = Duration.ZERO;
+    private Duration readBack = Duration.ZERO;
+    private OptionalInt exitCode = OptionalInt.empty();
+
+    public synchronized void scriptRan(final int exitCode, final Duration spawn, final Duration execute) {
+        this.exitCode = OptionalInt.of(exitCode);
+        this.spawn = this.spawn.plus(spawn);
+        this.execute = this.execute.plus(execute);
+    }
+
+    public synchronized void outputRead(final Duration readBack) {
+        this.readBack = this.readBack.plus(readBack);
+    }
+
+    synchronized Duration spawn() {
+        return spawn;
+    }
+
+    synchronized Duration execute() {
+        return execute;
+    }
+
+    synchronized Duration readBack() {
+        return readBack;
+    }
+
+    synchronized OptionalInt exitCode() {
+        return exitCode;
+    }
+}
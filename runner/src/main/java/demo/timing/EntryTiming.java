@@ -0,0 +1,23 @@
+package demo.timing;
+
+import java.util.OptionalInt;
+
+import static java.util.Objects.requireNonNull;
+
+public record EntryTiming(int index,
+                          String type,
+                          String heading,
+                          Timings.Phase phase,
+                          OptionalInt exitCode,
+                          long totalMillis,
+                          long spawnMillis,
+                          long executeMillis,
+                          long readBackMillis) {
+
+    public EntryTiming {
+        requireNonNull(type);
+        requireNonNull(heading);
+        requireNonNull(phase);
+        requireNonNull(exitCode);
+    }
+}
@@ -0,0 +1,138 @@
+package demo.timing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+
+public final class Timings {
+
+    private final List<EntryTiming> timings = new ArrayList<>();
+
+    public enum Phase {
+        RUN,
+        FINALLY,
+    }
+
+    public Measurement start(final int index, final Object entry, final String heading, final Phase phase) {
+        requireNonNull(entry);
+        requireNonNull(heading);
+        requireNonNull(phase);
+
+        return new Measurement(index, typeOf(entry), heading, phase);
+    }
+
+    public synchronized List<EntryTiming> timings() {
+        return List.copyOf(timings);
+    }
+
+    public List<EntryTiming> slowest(final int limit) {
+        return timings().stream()
+                .sorted(Comparator.comparingLong(EntryTiming::totalMillis).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    public String summary(final int limit) {
+        final StringBuilder summary = new StringBuilder()
+                .append("%5s  %-7s  %-11s  %10s  %10s  %10s  %10s  %4s  %s%n".formatted(
+                        "Index", "Phase", "Type", "Total", "Spawn", "Execute", "Read-back", "Exit", "Heading"));
+
+        for (final EntryTiming timing : slowest(limit)) {
+            summary.append("%5d  %-7s  %-11s  %10s  %10s  %10s  %10s  %4s  %s%n".formatted(
+                    timing.index() + 1,
+                    timing.phase().name().toLowerCase(),
+                    timing.type(),
+                    format(timing.totalMillis()),
+                    format(timing.spawnMillis()),
+                    format(timing.executeMillis()),
+                    format(timing.readBackMillis()),
+                    timing.exitCode().isPresent() ? String.valueOf(timing.exitCode().getAsInt()) : "",
+                    timing.heading()));
+        }
+
+        return summary.toString();
+    }
+
+    public void writeJson(final Path file) {
+        try {
+            MAPPER.writeValue(file.toFile(), slowest(Integer.MAX_VALUE));
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to write the timings to " + file, e);
+        }
+    }
+
+    private synchronized void add(final EntryTiming timing) {
+        timings.add(timing);
+    }
+
+    private static String typeOf(final Object entry) {
+        final String name = entry.getClass().getSimpleName();
+        return name.isEmpty() ? entry.getClass().getName() : name;
+    }
+
+    private static String format(final long millis) {
+        return "%.3fs".formatted(millis / 1000.0);
+    }
+
+    public final class Measurement implements AutoCloseable {
+
+        private final int index;
+        private final String type;
+        private final String heading;
+        private final Phase phase;
+        private final EntryTimer timer = new EntryTimer();
+        private final EntryEvent event = new EntryEvent();
+        private final long started = System.nanoTime();
+
+        private Measurement(final int index, final String type, final String heading, final Phase phase) {
+            this.index = index;
+            this.type = type;
+            this.heading = heading;
+            this.phase = phase;
+            event.begin();
+        }
+
+        public EntryTimer timer() {
+            return timer;
+        }
+
+        @Override
+        public void close() {
+            final Duration total = Duration.ofNanos(System.nanoTime() - started);
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.index = index;
+                event.type = type;
+                event.heading = heading;
+                event.phase = phase.name().toLowerCase();
+                event.exitCode = timer.exitCode().orElse(-1);
+                event.spawnTime = timer.spawn().toNanos();
+                event.executeTime = timer.execute().toNanos();
+                event.readBackTime = timer.readBack().toNanos();
+                event.commit();
+            }
+
+            add(new EntryTiming(index, type, heading, phase, timer.exitCode(), total.toMillis(),
+                    timer.spawn().toMillis(), timer.execute().toMillis(), timer.readBack().toMillis()));
+        }
+    }
+
+    private static final ObjectMapper MAPPER = JsonMapper.builder()
+            .addModule(new Jdk8Module())
+            .propertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE)
+            .enable(SerializationFeature.INDENT_OUTPUT)
+            .build();
+}
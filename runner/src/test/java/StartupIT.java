@@ -0,0 +1,51 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/* The run that took the least time is the one checked, as the others are slowed down by whatever else is running on
+   the machine. */
+class StartupIT {
+
+    @Test
+    void runSmallPlaybookWithinBudget() throws IOException, InterruptedException {
+        final Duration budget = Duration.ofMillis(Long.getLong("sw.startup.budget.millis", 500));
+
+        Duration fastest = Duration.ofDays(1);
+        for (int i = 0; i < RUNS; i++) {
+            final Duration duration = timeRun();
+            if (duration.compareTo(fastest) < 0) {
+                fastest = duration;
+            }
+        }
+
+        assertThat(fastest)
+                .describedAs("The program should start and run a small playbook within %d ms", budget.toMillis())
+                .isLessThanOrEqualTo(budget);
+    }
+
+    private static Duration timeRun() throws IOException, InterruptedException {
+        final ProcessBuilder processBuilder = new ProcessBuilder(
+                "./target/sw",
+                "--playbook", "./src/test/resources/fixtures/a.json",
+                "--output", "./target/startup.md",
+                "--no-cache");
+        processBuilder.redirectErrorStream(true);
+        processBuilder.redirectOutput(new File("target", "startup-output.txt"));
+
+        final long start = System.nanoTime();
+        final Process process = processBuilder.start();
+        final int exitCode = process.waitFor();
+        final Duration duration = Duration.ofNanos(System.nanoTime() - start);
+
+        assertThat(exitCode)
+                .describedAs("The program should exit without error")
+                .isEqualTo(0);
+        return duration;
+    }
+
+    private static final int RUNS = 5;
+}
@@ -0,0 +1,129 @@
+package demo;
+
+import demo.domain.Document;
+import demo.domain.RunOptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BatchRunnerTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void findPlaybooksMatchingGlob() throws IOException {
+        final Path first = writePlaybook("first", "echo 'First'");
+        final Path second = writePlaybook("second", "echo 'Second'");
+        Files.writeString(directory.resolve("first/other.json"), "{}");
+
+        final List<Path> found = BatchRunner.find(List.of(directory + "/*/sw-playbook.json"));
+
+        assertThat(found).containsExactly(first, second);
+    }
+
+    @Test
+    void failWhenNoPlaybookMatches() {
+        assertThatThrownBy(() -> BatchRunner.find(List.of(directory + "/*/missing.json")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void failWhenTheOutputIsAnAbsolutePath() {
+        final Path output = directory.resolve("README.md");
+
+        assertThatThrownBy(() -> new BatchRunner(2, output, _ -> RunOptions.defaults(), Document::stream))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining(output.toString());
+    }
+
+    @Test
+    void isolateFailingPlaybooks() throws IOException {
+        final Path failing = writePlaybook("failing", "exit 1");
+        final Path passing = writePlaybook("passing", "echo 'Passed'");
+        final Path broken = Files.writeString(Files.createDirectories(directory.resolve("broken")).resolve("sw-playbook.json"), "{");
+
+        final List<BatchRunner.PlaybookResult> results = new BatchRunner(2, Path.of("README.md"), _ -> RunOptions.defaults(), Document::stream)
+                .run(List.of(failing, passing, broken));
+
+        assertThat(results)
+                .extracting(BatchRunner.PlaybookResult::ok)
+                .containsExactly(false, true, false);
+        assertThat(Files.readString(passing.resolveSibling("README.md")))
+                .startsWith(Main.HEADER)
+                .contains("Passed");
+        assertThat(broken.resolveSibling("README.md"))
+                .describedAs("The output of a playbook that could not be read completely is not published")
+                .doesNotExist();
+        assertThat(Files.readString(failing.resolveSibling("README.md"))).contains("exit 1");
+        assertThat(BatchRunner.summary(results)).contains("3 playbook(s), 2 failed");
+    }
+
+    @Test
+    void runEachPlaybookFromItsOwnDirectory() throws IOException {
+        final Path first = writePlaybook("first", "pwd");
+        final Path second = writePlaybook("second", "pwd");
+        for (final Path playbook : List.of(first, second)) {
+            Files.writeString(playbook.resolveSibling("notes.txt"), "Notes of " + playbook.getParent().getFileName());
+            Files.writeString(playbook, """
+                    {
+                      "entries": [
+                        { "type": "Command", "commands": ["pwd"], "output": { "caption": "The directory" } },
+                        { "type": "DisplayFile", "path": "notes.txt" }
+                      ]
+                    }""");
+        }
+
+        final List<BatchRunner.PlaybookResult> results = new BatchRunner(2, Path.of("README.md"), _ -> RunOptions.defaults(), Document::stream)
+                .run(List.of(first, second));
+
+        assertThat(results)
+                .extracting(BatchRunner.PlaybookResult::ok)
+                .containsExactly(true, true);
+        assertThat(Files.readString(first.resolveSibling("README.md")))
+                .contains(first.getParent().toRealPath().toString(), "Notes of first");
+        assertThat(Files.readString(second.resolveSibling("README.md")))
+                .contains(second.getParent().toRealPath().toString(), "Notes of second");
+    }
+
+    @Test
+    void includeThePlaybooksRelativeToTheDirectoryOfThePlaybook() throws IOException {
+        final Path playbook = Files.writeString(Files.createDirectories(directory.resolve("first")).resolve("sw-playbook.json"), """
+                { "entries": [ { "type": "Include", "path": "setup.json" } ] }""");
+        Files.writeString(playbook.resolveSibling("setup.json"), """
+                { "entries": [ { "type": "Markdown", "contents": ["Setup"] } ] }""");
+
+        final List<BatchRunner.PlaybookResult> results = new BatchRunner(1, Path.of("README.md"), _ -> RunOptions.defaults(), Document::stream)
+                .run(List.of(playbook));
+
+        assertThat(results)
+                .extracting(BatchRunner.PlaybookResult::ok)
+                .containsExactly(true);
+        assertThat(Files.readString(playbook.resolveSibling("README.md"))).contains("Setup");
+    }
+
+    private Path writePlaybook(final String name, final String command) throws IOException {
+        final String json = """
+                {
+                  "entries": [
+                    {
+                      "type": "Command",
+                      "commands": [
+                        "%s"
+                      ],
+                      "output": {
+                        "caption": "The output"
+                      }
+                    }
+                  ]
+                }""".formatted(command);
+        return Files.writeString(Files.createDirectories(directory.resolve(name)).resolve("sw-playbook.json"), json);
+    }
+}
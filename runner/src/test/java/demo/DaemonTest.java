@@ -0,0 +1,110 @@
+package demo;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DaemonTest {
+
+    @TempDir
+    private Path directory;
+
+    private Daemon daemon;
+    private Thread serving;
+
+    @BeforeEach
+    void startDaemon() {
+        daemon = new Daemon(socket(), 2);
+        serving = Thread.ofPlatform().start(daemon::serve);
+    }
+
+    @AfterEach
+    void stopDaemon() throws InterruptedException {
+        daemon.close();
+        serving.join();
+
+        assertThat(socket()).doesNotExist();
+    }
+
+    @Test
+    void runPlaybookAndReturnOutputAndStatus() throws IOException {
+        final Path playbook = writePlaybook("echo 'Hello from the daemon'");
+        final ByteArrayOutputStream console = new ByteArrayOutputStream();
+
+        final int status = forward(console, "-f", playbook.toString(), "-o", output().toString());
+
+        assertThat(status).isEqualTo(0);
+        assertThat(console.toString(UTF_8)).contains("Running file: " + playbook);
+        assertThat(Files.readString(output())).contains("Hello from the daemon");
+    }
+
+    @Test
+    void returnFailureStatus() throws IOException {
+        final Path playbook = writePlaybook("exit 1");
+
+        final int status = forward(new ByteArrayOutputStream(), "-f", playbook.toString(), "-o", output().toString());
+
+        assertThat(status).isEqualTo(1);
+    }
+
+    @Test
+    void parseChangedPlaybookAgain() throws IOException {
+        final Path playbook = writePlaybook("echo 'First'");
+        forward(new ByteArrayOutputStream(), "-f", playbook.toString(), "-o", output().toString());
+
+        writePlaybook("echo 'Second run'");
+        forward(new ByteArrayOutputStream(), "-f", playbook.toString(), "-o", output().toString());
+
+        assertThat(Files.readString(output())).contains("Second run");
+    }
+
+    @Test
+    void refuseRequestsThatKeepRunning() {
+        final ByteArrayOutputStream console = new ByteArrayOutputStream();
+
+        final int status = forward(console, "--watch");
+
+        assertThat(status).isEqualTo(2);
+        assertThat(console.toString(UTF_8)).contains("does not run requests that keep running");
+    }
+
+    private int forward(final ByteArrayOutputStream console, final String... args) {
+        return DaemonClient.forward(socket(), args, new PrintStream(console, true, UTF_8));
+    }
+
+    private Path writePlaybook(final String command) throws IOException {
+        final String json = """
+                {
+                  "entries": [
+                    {
+                      "type": "Command",
+                      "commands": [
+                        "%s"
+                      ],
+                      "output": {
+                        "caption": "The output"
+                      }
+                    }
+                  ]
+                }""".formatted(command);
+        return Files.writeString(directory.resolve("sw-playbook.json"), json);
+    }
+
+    private Path socket() {
+        return directory.resolve("sw.sock");
+    }
+
+    private Path output() {
+        return directory.resolve("README.md");
+    }
+}
@@ -0,0 +1,129 @@
+package demo;
+
+import demo.domain.RunOptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PlaybookWatcherTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void reuseCommandOutputAndDisplayChangedFile() throws IOException {
+        final Path shown = Files.writeString(directory.resolve("shown.txt"), "Before\n");
+        final Path playbook = writePlaybook("date +%s%N", shown);
+        final PlaybookWatcher watcher = new PlaybookWatcher(playbook, output(), RunOptions.defaults());
+
+        watcher.render(Set.of());
+        final String commandOutput = commandOutput();
+
+        Files.writeString(shown, "After\n");
+        watcher.render(Set.of(shown));
+
+        assertThat(commandOutput())
+                .describedAs("The command did not change and should not run again")
+                .isEqualTo(commandOutput);
+        assertThat(Files.readString(output()))
+                .startsWith(Main.HEADER)
+                .contains("After")
+                .doesNotContain("Before");
+    }
+
+    @Test
+    void keepDisplayedFileWhenNotChanged() throws IOException {
+        final Path shown = Files.writeString(directory.resolve("shown.txt"), "Before\n");
+        final Path playbook = writePlaybook("date +%s%N", shown);
+        final PlaybookWatcher watcher = new PlaybookWatcher(playbook, output(), RunOptions.defaults());
+
+        watcher.render(Set.of());
+        Files.writeString(shown, "After\n");
+        watcher.render(Set.of(directory.resolve("other.txt")));
+
+        assertThat(Files.readString(output()))
+                .contains("Before")
+                .doesNotContain("After");
+    }
+
+    @Test
+    void runChangedCommandAgain() throws IOException {
+        final Path shown = Files.writeString(directory.resolve("shown.txt"), "Shown\n");
+        final Path playbook = writePlaybook("date +%s%N", shown);
+        final PlaybookWatcher watcher = new PlaybookWatcher(playbook, output(), RunOptions.defaults());
+
+        watcher.render(Set.of());
+        final String commandOutput = commandOutput();
+
+        writePlaybook("date +%s%N && echo 'Changed'", shown);
+        watcher.render(Set.of(playbook));
+
+        assertThat(commandOutput()).isNotEqualTo(commandOutput);
+        assertThat(Files.readString(output())).contains("Changed");
+    }
+
+    @Test
+    void displayTheChangedFileOfAnIncludedPlaybook() throws IOException {
+        final Path shown = Files.writeString(directory.resolve("shown.txt"), "Before\n");
+        final Path included = writePlaybook("date +%s%N", shown);
+        final Path playbook = Files.writeString(directory.resolve("main.json"), """
+                { "entries": [ { "type": "Include", "path": "%s" } ] }""".formatted(included.getFileName()));
+        final PlaybookWatcher watcher = new PlaybookWatcher(playbook, output(), RunOptions.defaults());
+
+        assertThat(watcher.render(Set.of()))
+                .describedAs("The included playbook and the file it displays should be watched")
+                .containsExactlyInAnyOrder(playbook, included, shown);
+        final String commandOutput = commandOutput();
+
+        Files.writeString(shown, "After\n");
+        watcher.render(Set.of(shown));
+
+        assertThat(commandOutput()).isEqualTo(commandOutput);
+        assertThat(Files.readString(output()))
+                .contains("After")
+                .doesNotContain("Before");
+    }
+
+    private Path writePlaybook(final String command, final Path shown) throws IOException {
+        final String json = """
+                {
+                  "entries": [
+                    {
+                      "type": "Command",
+                      "commands": [
+                        "%s"
+                      ],
+                      "output": {
+                        "caption": "The time"
+                      }
+                    },
+                    {
+                      "type": "DisplayFile",
+                      "path": "%s"
+                    }
+                  ]
+                }""".formatted(command, shown);
+        return Files.writeString(directory.resolve("sw-playbook.json"), json);
+    }
+
+    private Path output() {
+        return directory.resolve("README.md");
+    }
+
+    /* The line following the caption holds the time the command ran */
+    private String commandOutput() throws IOException {
+        final List<String> lines = Files.readAllLines(output());
+        return lines.stream()
+                .dropWhile(line -> !line.contains("The time"))
+                .filter(line -> line.strip().matches("\\d+"))
+                .findFirst()
+                .orElseThrow();
+    }
+}
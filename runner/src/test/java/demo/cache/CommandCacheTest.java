@@ -0,0 +1,100 @@
+package demo.cache;
+
+import demo.shell.ShellOutput;
+import demo.shell.ShellScriptResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CommandCacheTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void replayStoredResult() {
+        try (CommandCache cache = CommandCache.create(options(CacheOptions.Mode.ENABLED))) {
+            final String key = cache.key("echo 'Hello'", Path.of(""), Optional.empty(), List.of());
+            assertThat(cache.find(key)).isEmpty();
+
+            cache.store(key, result(3, "Hello", "there"));
+
+            try (ShellScriptResult replayed = cache.find(key).orElseThrow()) {
+                assertThat(replayed.exitCode()).isEqualTo(3);
+                assertThat(replayed.readOutput()).containsExactly("Hello", "there");
+            }
+            assertThat(cache.hits()).isEqualTo(1);
+            assertThat(cache.misses()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void changeKeyWhenAnInputChanges() throws IOException {
+        final Path input = directory.resolve("input.txt");
+        Files.writeString(input, "first");
+
+        try (CommandCache cache = CommandCache.create(options(CacheOptions.Mode.ENABLED))) {
+            final String first = cache.key("cat input.txt", directory, Optional.empty(), List.of(Path.of("input.txt")));
+            Files.writeString(input, "second");
+            final String second = cache.key("cat input.txt", directory, Optional.empty(), List.of(Path.of("input.txt")));
+
+            assertThat(first).isNotEqualTo(second);
+        }
+    }
+
+    @Test
+    void ignoreStoredResultWhenRefreshing() {
+        try (CommandCache cache = CommandCache.create(options(CacheOptions.Mode.REFRESH))) {
+            final String key = cache.key("echo 'Hello'", Path.of(""), Optional.empty(), List.of());
+            cache.store(key, result(0, "Hello"));
+
+            assertThat(cache.find(key)).isEmpty();
+            assertThat(cache.stores()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void evictOldEntriesWhenClosed() throws IOException {
+        final Path old = Files.writeString(directory.resolve("old.out"), "sw-cache-v1 0\n");
+        Files.setLastModifiedTime(old, FileTime.from(Instant.now().minus(Duration.ofDays(31))));
+
+        try (CommandCache cache = CommandCache.create(options(CacheOptions.Mode.ENABLED))) {
+            cache.store(cache.key("echo 'Hello'", Path.of(""), Optional.empty(), List.of()), result(0, "Hello"));
+        }
+
+        assertThat(old).doesNotExist();
+        assertThat(directory).isNotEmptyDirectory();
+    }
+
+    @Test
+    void leaveTheFilesOtherRunsAreWriting() throws IOException {
+        final Path temporary = Files.writeString(directory.resolve("other.tmp"), "sw-cache-v1 0\n");
+        Files.setLastModifiedTime(temporary, FileTime.from(Instant.now().minus(Duration.ofDays(31))));
+
+        try (CommandCache cache = CommandCache.create(options(CacheOptions.Mode.ENABLED))) {
+            cache.store(cache.key("echo 'Hello'", Path.of(""), Optional.empty(), List.of()), result(0, "Hello"));
+        }
+
+        assertThat(temporary).exists();
+    }
+
+    private CacheOptions options(final CacheOptions.Mode mode) {
+        return new CacheOptions(mode, directory, CacheOptions.DEFAULT_MAX_SIZE, CacheOptions.DEFAULT_MAX_AGE);
+    }
+
+    private static ShellScriptResult result(final int exitCode, final String... lines) {
+        final ShellOutput output = () -> Stream.of(lines);
+        return new ShellScriptResult(exitCode, output);
+    }
+}
@@ -0,0 +1,98 @@
+package demo.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileContentCacheTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void readTheFileOnce() throws IOException {
+        final Path file = write("file.txt", "one\ntwo\n");
+        final FileContentCache cache = FileContentCache.create(FileContentCache.DEFAULT_MAX_SIZE);
+
+        assertThat(cache.lines(file)).contains(List.of("one", "two"));
+        assertThat(cache.lines(file)).contains(List.of("one", "two"));
+
+        assertThat(cache.hits()).isEqualTo(1);
+        assertThat(cache.misses()).isEqualTo(1);
+        assertThat(cache.hitRate()).isEqualTo(0.5);
+    }
+
+    @Test
+    void readTheFileAgainWhenItChanges() throws IOException {
+        final Path file = write("file.txt", "one\ntwo\n");
+        final FileContentCache cache = FileContentCache.create(FileContentCache.DEFAULT_MAX_SIZE);
+        assertThat(cache.lines(file)).contains(List.of("one", "two"));
+
+        /* The same size, as a command editing the file in place */
+        Files.writeString(file, "six\nten\n");
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(Duration.ofMinutes(1))));
+
+        assertThat(cache.lines(file)).contains(List.of("six", "ten"));
+        assertThat(cache.hits()).isZero();
+    }
+
+    @Test
+    void doNotKeepAFileModifiedJustBeforeItWasRead() throws IOException {
+        final Path file = Files.writeString(directory.resolve("file.txt"), "one\n");
+        final FileContentCache cache = FileContentCache.create(FileContentCache.DEFAULT_MAX_SIZE);
+
+        assertThat(cache.lines(file)).contains(List.of("one"));
+        assertThat(cache.lines(file)).contains(List.of("one"));
+
+        assertThat(cache.hits()).isZero();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void evictTheLeastRecentlyUsedFile() throws IOException {
+        final Path first = write("first.txt", "a".repeat(100));
+        final Path second = write("second.txt", "b".repeat(100));
+        final Path third = write("third.txt", "c".repeat(100));
+
+        /* Room for two of these files */
+        final FileContentCache cache = FileContentCache.create(600);
+        cache.lines(first);
+        cache.lines(second);
+        cache.lines(first);
+        cache.lines(third);
+
+        cache.lines(first);
+        cache.lines(second);
+
+        /* The second file was evicted when the third was read, and then read again */
+        assertThat(cache.hits()).isEqualTo(2);
+        assertThat(cache.misses()).isEqualTo(4);
+        assertThat(cache.size()).isLessThanOrEqualTo(600);
+    }
+
+    @Test
+    void doNotKeepLargeFiles() throws IOException {
+        final Path file = write("large.txt", "a".repeat(1000));
+        final FileContentCache cache = FileContentCache.create(1000);
+
+        assertThat(cache.lines(file)).isEqualTo(Optional.empty());
+        assertThat(cache.hits() + cache.misses()).isZero();
+    }
+
+    /* Modified a while ago, as files modified just before being read are not kept */
+    private Path write(final String name, final String contents) throws IOException {
+        final Path file = Files.writeString(directory.resolve(name), contents);
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(Duration.ofHours(1))));
+        return file;
+    }
+}
@@ -0,0 +1,26 @@
+package demo.cli;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CommandLineArgumentsTest {
+
+    @Test
+    void parseTheKillGracePeriod() {
+        final CommandLineArguments cla = CommandLineArguments.parse(new String[]{"--kill-grace-period", "1 minute 30 seconds"});
+
+        assertThat(cla.killGracePeriod()).isEqualTo(Duration.ofSeconds(90));
+    }
+
+    @Test
+    void rejectAKillGracePeriodThatIsNotADuration() {
+        assertThatThrownBy(() -> CommandLineArguments.parse(new String[]{"--kill-grace-period", "5s"}))
+                .hasMessage("Failed to parse the command line arguments")
+                .rootCause()
+                .hasMessageContaining("'5s'");
+    }
+}
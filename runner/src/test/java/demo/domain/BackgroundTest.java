@@ -0,0 +1,78 @@
+package demo.domain;
+
+import demo.shell.BackgroundProcess;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BackgroundTest {
+
+    @Test
+    void showTheOutputOfTheProcessOnceItIsReady() {
+        final Document document = new Document(List.of(
+                new Background("app", List.of("echo 'Starting'", "echo 'Ready'", "exec sleep 30"), Optional.empty(),
+                        Optional.of("Ready"), Optional.of(Duration.ofSeconds(10))),
+                new BackgroundAction("app", BackgroundAction.Action.OUTPUT, Optional.empty(), Optional.empty(),
+                        Optional.empty()),
+                new BackgroundAction("app", BackgroundAction.Action.STOP, Optional.empty(), Optional.empty(),
+                        Optional.empty())));
+
+        final StringWriter writer = new StringWriter();
+        try (RunContext context = RunContext.create(RunOptions.defaults())) {
+            assertThat(document.run(context, writer)).isTrue();
+        }
+
+        assertThat(writer.toString())
+                .contains("""
+                        _Output_
+
+                        ```
+                        Starting
+                        Ready
+                        ```
+                        """);
+    }
+
+    @Test
+    void failWhenTheProcessIsNotReadyInTime() {
+        final Background background = new Background("app", List.of("sleep 30"), Optional.empty(),
+                Optional.of("Ready"), Optional.of(Duration.ofMillis(200)));
+
+        try (RunContext context = RunContext.create(RunOptions.defaults())) {
+            assertThat(background.run(context))
+                    .isInstanceOf(Result.Error.class);
+        }
+    }
+
+    @Test
+    void stopTheProcessWhenTheFinallyBlocksRun() {
+        final Background background = new Background("app", List.of("sleep 30"), Optional.empty(), Optional.empty(),
+                Optional.empty());
+
+        try (RunContext context = RunContext.create(RunOptions.defaults())) {
+            new Document(List.of(background)).run(context, new StringWriter());
+
+            assertThat(context.state(background, BackgroundProcess.class))
+                    .get()
+                    .extracting(BackgroundProcess::isAlive)
+                    .isEqualTo(false);
+            assertThat(context.background().find("app")).isEmpty();
+        }
+    }
+
+    @Test
+    void failWhenNoProcessWasStartedWithTheName() {
+        final BackgroundAction action = new BackgroundAction("app", BackgroundAction.Action.WAIT, Optional.empty(),
+                Optional.empty(), Optional.empty());
+
+        try (RunContext context = RunContext.create(RunOptions.defaults())) {
+            assertThat(action.run(context))
+                    .isEqualTo(Result.error("_Unexpected Outcome_ (No background process named 'app' is running)\n"));
+        }
+    }
+}
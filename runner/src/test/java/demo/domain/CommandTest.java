@@ -1,5 +1,6 @@
 package demo.domain;
 
+import demo.shell.ShellMode;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
@@ -83,7 +84,10 @@ class CommandTest {
                             "test",
                             "tags"
                           ],
-                          "indent": 3
+                          "indent": 3,
+                          "inputs": [
+                            "pom.xml"
+                          ]
                         }
                       ]
                     }""";
@@ -101,7 +105,8 @@ class CommandTest {
                             Optional.of(new Command.CommandOutput(Optional.of(false), Optional.of(List.of("The output is hidden")), Optional.of("xml"))),
                             Optional.of(List.of("test", "tags")),
                             Optional.of(List.of("test", "comments")),
-                            OptionalInt.of(3)))));
+                            OptionalInt.of(3),
+                            Optional.of(List.of(Path.of("pom.xml")))))));
         }
 
         @Test
@@ -431,6 +436,60 @@ class CommandTest {
                     .isEqualTo(Result.ok(expected));
         }
 
+        @Test
+        void runCommandWithLongOutputKeepingTheFirstAndLastLines() {
+            final Entry entry = new Command(
+                    List.of("seq 1 10000"),
+                    Optional.empty(),
+                    Optional.empty(),
+                    Optional.empty(),
+                    Optional.empty(),
+                    Optional.empty(),
+                    Optional.of(new Command.CommandOutput(Optional.empty(), Optional.empty(), Optional.empty(), OptionalInt.of(2), OptionalInt.of(1))),
+                    Optional.empty(),
+                    Optional.empty(),
+                    OptionalInt.empty());
+
+            final Result result = entry.run();
+
+            assertThat(result)
+                    .isEqualTo(Result.ok("""
+                            ```shell
+                            seq 1 10000
+                            ```
+
+                            _Output_
+
+                            ```
+                            1
+                            2
+                            [... 9997 lines omitted, 48894 bytes of output in total ...]
+                            10000
+                            ```
+                            """));
+        }
+
+        @Test
+        void onlyTellThatTheScriptFileIsDeletedWhenTheScriptIsWrittenToAFile() {
+            final Command command = new Command(
+                    List.of("echo 'Hello there!'"),
+                    Optional.empty(),
+                    Optional.empty(),
+                    Optional.empty(),
+                    Optional.empty(),
+                    Optional.empty(),
+                    Optional.empty(),
+                    Optional.empty(),
+                    Optional.empty(),
+                    OptionalInt.empty());
+
+            assertThat(command.scripts(ShellMode.SCRIPT_FILE).commands())
+                    .contains("# This file is automatically deleted once the execution completes");
+            assertThat(command.scripts(ShellMode.STDIN).commands())
+                    .doesNotContain("automatically deleted")
+                    .endsWith("set -e\n\necho 'Hello there!'\n");
+        }
+
         private static String readString(final Path path) {
             try {
                 return Files.readString(path);
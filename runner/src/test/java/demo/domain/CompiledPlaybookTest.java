@@ -0,0 +1,107 @@
+package demo.domain;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompiledPlaybookTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void loadTheCompiledPlaybook() throws IOException {
+        final Path playbook = Files.writeString(directory.resolve("sw-playbook.json"), PLAYBOOK);
+
+        final Path compiled = Document.compile(playbook);
+
+        assertThat(compiled).isEqualTo(directory.resolve("sw-playbook.json.smile"));
+        assertThat(CompiledPlaybook.open(playbook)).isPresent();
+        assertThat(Document.parse(playbook)).isEqualTo(Document.parse(PLAYBOOK));
+    }
+
+    @Test
+    void replaceThePreviouslyCompiledPlaybookWithoutLeavingFilesBehind() throws IOException {
+        final Path playbook = Files.writeString(directory.resolve("sw-playbook.json"), PLAYBOOK);
+        Document.compile(playbook);
+
+        Document.compile(playbook);
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files).containsExactlyInAnyOrder(playbook, CompiledPlaybook.path(playbook));
+        }
+    }
+
+    @Test
+    void streamTheCompiledPlaybook() throws IOException {
+        final Path playbook = Files.writeString(directory.resolve("sw-playbook.json"), PLAYBOOK);
+        Document.compile(playbook);
+
+        try (Stream<Entry> entries = Document.stream(playbook)) {
+            assertThat(entries.toList()).isEqualTo(Document.parse(PLAYBOOK).entries());
+        }
+    }
+
+    @Test
+    void parseThePlaybookWhenItChangedSinceItWasCompiled() throws IOException {
+        final Path playbook = Files.writeString(directory.resolve("sw-playbook.json"), PLAYBOOK);
+        Document.compile(playbook);
+
+        Files.writeString(playbook, """
+                {
+                  "entries": [
+                    {
+                      "type": "Todo"
+                    }
+                  ]
+                }""");
+
+        assertThat(CompiledPlaybook.open(playbook)).isEmpty();
+        assertThat(Document.parse(playbook)).isEqualTo(new Document(List.of(new Todo(Optional.empty()))));
+    }
+
+    @Test
+    void doNotCompileAnInvalidPlaybook() throws IOException {
+        final Path playbook = Files.writeString(directory.resolve("sw-playbook.json"), """
+                {
+                  "entries": [
+                    {
+                      "type": "Unknown"
+                    }
+                  ]
+                }""");
+
+        assertThatThrownBy(() -> Document.compile(playbook))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(CompiledPlaybook.path(playbook)).doesNotExist();
+    }
+
+    private static final String PLAYBOOK = """
+            {
+              "entries": [
+                {
+                  "type": "Heading",
+                  "level": "H2",
+                  "title": "Prerequisites"
+                },
+                {
+                  "type": "Command",
+                  "commands": ["echo 'Hello world'"],
+                  "should_finish_within": "5 seconds"
+                },
+                {
+                  "type": "Markdown",
+                  "contents": ["Some text", "over two lines"]
+                }
+              ]
+            }""";
+}
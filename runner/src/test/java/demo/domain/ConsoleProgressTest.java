@@ -0,0 +1,57 @@
+package demo.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConsoleProgressTest {
+
+    @Test
+    void printCommandOutputTogetherWithTheEntryAndTheElapsedTime() throws Exception {
+        final ByteArrayOutputStream console = new ByteArrayOutputStream();
+        final Progress progress = new ConsoleProgress(new PrintStream(console, true, UTF_8), Duration.ofMillis(50));
+
+        progress.entryStarted(0, OptionalInt.of(3), new Heading(Heading.HeadingLevel.H2, "Build"));
+        progress.entryStarted(1, OptionalInt.of(3), new Markdown(List.of("Text"), Optional.empty()));
+        try (Progress.CommandProgress command = progress.commandStarted("mvn package", Duration.ofMinutes(5))) {
+            command.output().write("Building\n".getBytes(UTF_8));
+            Thread.sleep(200);
+        }
+
+        assertThat(console.toString(UTF_8).lines())
+                .startsWith("[2/3] Build (mvn package) running, allowed 5:00", "[2/3] Build (mvn package) | Building")
+                .anyMatch(line -> line.matches("\\[2/3] Build \\(mvn package\\) still running, 0:00 of 5:00"))
+                .last()
+                .isEqualTo("[2/3] Build (mvn package) finished in 0:00 of 5:00");
+    }
+
+    @Test
+    void keepTheLinesOfCommandsRunningAtTheSameTimeApart() throws Exception {
+        final ByteArrayOutputStream console = new ByteArrayOutputStream();
+        final Progress progress = new ConsoleProgress(new PrintStream(console, true, UTF_8), Duration.ofMinutes(1));
+
+        progress.entryStarted(0, OptionalInt.of(1), new Markdown(List.of("Text"), Optional.empty()));
+        try (Progress.CommandProgress first = progress.commandStarted("first", Duration.ofMinutes(5));
+             Progress.CommandProgress second = progress.commandStarted("second", Duration.ofMinutes(5))) {
+            first.output().write("Hello ".getBytes(UTF_8));
+            second.output().write("Bonjour ".getBytes(UTF_8));
+            first.output().write("world\nBye".getBytes(UTF_8));
+            second.output().write("le monde\n".getBytes(UTF_8));
+        }
+
+        assertThat(console.toString(UTF_8).lines())
+                .filteredOn(line -> line.contains(" | "))
+                .containsExactly(
+                        "[1/1] (first) | Hello world",
+                        "[1/1] (second) | Bonjour le monde",
+                        "[1/1] (first) | Bye");
+    }
+}
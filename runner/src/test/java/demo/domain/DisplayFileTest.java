@@ -8,6 +8,9 @@ import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 import java.util.OptionalInt;
@@ -309,6 +312,38 @@ class DisplayFileTest {
                     .isEqualTo(Result.ok(expected));
         }
 
+        @Test
+        void readTheFileOnceWhenDisplayedMoreThanOnceWithinARun() throws IOException {
+            final Path file = writeFixture("""
+                    first
+                    second
+                    third
+                    """, Path.of("target", "fixtures", "Excerpts.txt"));
+            Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(Duration.ofHours(1))));
+
+            final Entry first = new DisplayFile(file, Optional.empty(), OptionalInt.empty(), OptionalInt.of(1), Optional.empty(), OptionalInt.empty());
+            final Entry last = new DisplayFile(file, Optional.empty(), OptionalInt.of(3), OptionalInt.empty(), Optional.empty(), OptionalInt.empty());
+
+            final StringBuilder output = new StringBuilder();
+            try (RunContext context = RunContext.create(RunOptions.defaults())) {
+                first.run(context, output);
+                last.run(context, output);
+
+                assertThat(context.files().hits()).isEqualTo(1);
+                assertThat(context.files().misses()).isEqualTo(1);
+            }
+
+            assertThat(output.toString())
+                    .isEqualTo("""
+                            ```txt
+                            first
+                            ```
+                            ```txt
+                            third
+                            ```
+                            """);
+        }
+
         @AfterAll
         static void deleteTestFixtures() {
             deleteRecursively(Path.of(System.getProperty("user.home"), ".tmp"));
@@ -1,15 +1,28 @@
 package demo.domain;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.assertj.core.api.Assertions.fail;
 
 class DocumentTest {
 
+    @TempDir
+    private Path directory;
+
     @Test
     void runFinallyInTheReverseOder() {
         final AtomicLong counter = new AtomicLong();
@@ -42,6 +55,101 @@ class DocumentTest {
                 .isEqualTo(2);
     }
 
+    @Test
+    void writeEachEntryToTheWriterFollowedByAnEmptyLine() {
+        final Document document = new Document(List.of(
+                new Markdown(List.of("# Title"), Optional.empty()),
+                new Breakpoint(Optional.empty()),
+                noCall()));
+
+        final StringWriter writer = new StringWriter();
+        try (RunContext context = RunContext.create(RunOptions.defaults())) {
+            document.run(context, writer);
+        }
+
+        assertThat(writer.toString())
+                .isEqualTo("""
+                        # Title
+
+                        ---
+
+                        # Breakpoint!
+
+                        """);
+    }
+
+    @Test
+    void succeedWhenStoppingAtABreakpointAndFailWhenAnEntryFails() {
+        final Document stopped = new Document(List.of(new Breakpoint(Optional.empty()), noCall()));
+        final Document failed = new Document(List.of(error(new AtomicLong(), 1), noCall()));
+
+        try (RunContext context = RunContext.create(RunOptions.defaults())) {
+            assertThat(stopped.run(context, new StringWriter())).isTrue();
+            assertThat(failed.run(context, new StringWriter())).isFalse();
+        }
+    }
+
+    @Test
+    void runStreamedEntriesAndTheirFinallyBlocksInTheReverseOrder() {
+        final AtomicLong counter = new AtomicLong();
+
+        try (RunContext context = RunContext.create(RunOptions.defaults())) {
+            Document.run(context, List.of(ok(counter, 3), ok(counter, 2), ok(counter, 1)).iterator(), new StringWriter());
+        }
+
+        assertThat(counter.get()).isEqualTo(3);
+    }
+
+    @Test
+    void runFinallyOfTheProcessedEntriesWhenTheRestFailsToParse() {
+        final AtomicLong counter = new AtomicLong();
+        final Iterator<Entry> entries = Stream.<Supplier<Entry>>of(
+                        () -> ok(counter, 1),
+                        () -> {
+                            throw new IllegalArgumentException("Failed to parse the JSON object");
+                        })
+                .map(Supplier::get)
+                .iterator();
+
+        try (RunContext context = RunContext.create(RunOptions.defaults())) {
+            assertThatThrownBy(() -> Document.run(context, entries, new StringWriter()))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+
+        assertThat(counter.get())
+                .describedAs("The finally blocks of the entries that ran should be executed")
+                .isEqualTo(1);
+    }
+
+    @Test
+    void streamTheEntriesOfThePlaybook() throws IOException {
+        final Path file = Files.writeString(directory.resolve("sw-playbook.json"), """
+                {
+                  "entries": [
+                    {
+                      "type": "Markdown",
+                      "contents": ["# Title"]
+                    },
+                    {
+                      "type": "Breakpoint"
+                    }
+                  ]
+                }""");
+
+        try (Stream<Entry> entries = Document.stream(file)) {
+            assertThat(entries.toList()).isEqualTo(Document.parse(file).entries());
+        }
+    }
+
+    @Test
+    void streamNoEntriesFromEmptyPlaybook() throws IOException {
+        final Path file = Files.writeString(directory.resolve("sw-playbook.json"), "{}");
+
+        try (Stream<Entry> entries = Document.stream(file)) {
+            assertThat(entries).isEmpty();
+        }
+    }
+
     private static Entry ok(final AtomicLong counter, final long expectedFinallyExecutionOrder) {
         return new Entry() {
 
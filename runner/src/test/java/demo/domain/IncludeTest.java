@@ -0,0 +1,129 @@
+package demo.domain;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IncludeTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void runTheIncludedEntriesWhereTheyAreIncluded() throws IOException {
+        final Path setup = write("setup.json", """
+                {
+                  "entries": [
+                    { "type": "Markdown", "contents": ["Setup"] },
+                    { "type": "Include", "path": "%s" }
+                  ]
+                }""".formatted(directory.resolve("tools.json")));
+        write("tools.json", """
+                { "entries": [ { "type": "Markdown", "contents": ["Tools"] } ] }""");
+
+        final Document document = new Document(List.of(
+                new Markdown(List.of("Before"), Optional.empty()),
+                new Include(setup),
+                new Markdown(List.of("After"), Optional.empty())));
+
+        final StringWriter writer = new StringWriter();
+        try (RunContext context = RunContext.create(RunOptions.defaults())) {
+            document.run(context, writer);
+        }
+
+        assertThat(writer.toString())
+                .isEqualTo("""
+                        Before
+
+                        Setup
+
+                        Tools
+
+                        After
+
+                        """);
+    }
+
+    @Test
+    void failWhenAPlaybookIncludesItself() throws IOException {
+        final Path first = write("first.json", """
+                { "entries": [ { "type": "Include", "path": "%s" } ] }""".formatted(directory.resolve("second.json")));
+        write("second.json", """
+                { "entries": [ { "type": "Include", "path": "%s" } ] }""".formatted(first));
+
+        final List<Entry> entries = List.of(new Include(first));
+
+        assertThatThrownBy(() -> Document.expandIncludes(entries.stream(), directory).toList())
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("first.json -> " + directory.resolve("second.json") + " -> " + first);
+    }
+
+    @Test
+    void resolveTheIncludesAgainstTheDirectoryOfThePlaybookIncludingThem() throws IOException {
+        Files.createDirectories(directory.resolve("shared"));
+        write("shared/setup.json", """
+                { "entries": [ { "type": "Include", "path": "tools.json" } ] }""");
+        write("shared/tools.json", """
+                { "entries": [ { "type": "Markdown", "contents": ["Tools"] } ] }""");
+
+        final List<Entry> entries = List.of(new Include(Path.of("shared/setup.json")));
+
+        assertThat(Document.expandIncludes(entries.stream(), directory).toList())
+                .containsExactly(new Markdown(List.of("Tools"), Optional.empty()));
+    }
+
+    @Test
+    void includeTheSamePlaybookMoreThanOnce() throws IOException {
+        final Path setup = write("setup.json", """
+                { "entries": [ { "type": "Markdown", "contents": ["Setup"] } ] }""");
+
+        final List<Entry> entries = List.of(new Include(setup), new Include(setup));
+
+        assertThat(Document.expandIncludes(entries.stream(), directory).toList())
+                .containsExactly(
+                        new Markdown(List.of("Setup"), Optional.empty()),
+                        new Markdown(List.of("Setup"), Optional.empty()));
+    }
+
+    @Test
+    void parseTheIncludedPlaybookAgainOnlyWhenItChanges() throws IOException {
+        final Path setup = write("setup.json", """
+                { "entries": [ { "type": "Markdown", "contents": ["Setup"] } ] }""");
+
+        final Document parsed = IncludedPlaybooks.parse(setup);
+        assertThat(IncludedPlaybooks.parse(setup)).isSameAs(parsed);
+
+        Files.setLastModifiedTime(setup, FileTime.from(Instant.now()));
+        assertThat(IncludedPlaybooks.parse(setup))
+                .isNotSameAs(parsed)
+                .isEqualTo(parsed);
+    }
+
+    @Test
+    void doNotIncludePlaybooksInEntriesRunningAtTheSameTime() {
+        final List<Entry> entries = List.of(new Include(directory.resolve("setup.json")));
+
+        assertThatThrownBy(() -> new Parallel(entries, OptionalInt.empty()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /* Modified a while ago, so that touching the file is a change */
+    private Path write(final String name, final String playbook) throws IOException {
+        final Path file = Files.writeString(directory.resolve(name), playbook);
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(Duration.ofHours(1))));
+        return file;
+    }
+}
@@ -0,0 +1,86 @@
+package demo.domain;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LineIndexTest {
+
+    @TempDir
+    private Path directory;
+
+    private final LineIndex.Indexes indexes = new LineIndex.Indexes();
+
+    @Test
+    void readTheLinesLikeFilesLines() throws IOException {
+        for (final String contents : List.of("", "\n", "one", "one\n", "one\r\ntwo\rthree\n\nfive", "é\nß\r\n€")) {
+            final Path file = Files.writeString(directory.resolve("file.txt"), contents, UTF_8);
+
+            try (Stream<String> expected = Files.lines(file, UTF_8);
+                 Stream<String> actual = LineIndex.lines(indexes, file, 1, OptionalInt.empty())) {
+                assertThat(actual.toList())
+                        .describedAs("The lines of %s", contents.replace("\n", "\\n").replace("\r", "\\r"))
+                        .isEqualTo(expected.toList());
+            }
+        }
+    }
+
+    @Test
+    void readWindowsOfALargeFile() throws IOException {
+        final Path file = Files.writeString(directory.resolve("large.txt"), IntStream.rangeClosed(1, 2000)
+                .mapToObj(i -> "Line " + i + '\n')
+                .collect(Collectors.joining()), UTF_8);
+
+        /* Read further into the file first, and then go back to lines already indexed */
+        assertThat(lines(file, 1500, 3)).containsExactly("Line 1500", "Line 1501", "Line 1502");
+        assertThat(lines(file, 257, 2)).containsExactly("Line 257", "Line 258");
+        assertThat(lines(file, 1999, 5)).containsExactly("Line 1999", "Line 2000");
+        assertThat(lines(file, 2001, 5)).isEmpty();
+        assertThat(lines(file, 10, 0)).isEmpty();
+    }
+
+    @Test
+    void indexTheFileAgainWhenItChanges() throws IOException {
+        final Path file = Files.writeString(directory.resolve("file.txt"), "a\nb\nc\n", UTF_8);
+        assertThat(lines(file, 2, 1)).containsExactly("b");
+
+        Files.writeString(file, "a much longer first line\nsecond\n", UTF_8);
+        assertThat(lines(file, 2, 1)).containsExactly("second");
+    }
+
+    @Test
+    void failWhenTheLinesAreNotUtf8() throws IOException {
+        final Path file = Files.write(directory.resolve("file.txt"), new byte[]{'a', '\n', (byte) 0xff, '\n'});
+
+        assertThat(lines(file, 1, 1)).containsExactly("a");
+        assertThatThrownBy(() -> lines(file, 2, 1))
+                .isInstanceOf(UncheckedIOException.class);
+    }
+
+    @Test
+    void failWhenTheFirstLineIsNotPositive() throws IOException {
+        final Path file = Files.writeString(directory.resolve("file.txt"), "a\n", UTF_8);
+
+        assertThatThrownBy(() -> LineIndex.lines(indexes, file, 0, OptionalInt.empty()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private List<String> lines(final Path file, final int fromLine, final int numberOfLines) {
+        try (Stream<String> lines = LineIndex.lines(indexes, file, fromLine, OptionalInt.of(numberOfLines))) {
+            return lines.toList();
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package demo.domain;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.fail;
+
+class ParallelTest {
+
+    @Nested
+    class DeserializeTests {
+
+        @Test
+        void returnDeserializedParallelWhenGivenMinimumOptions() {
+            final String json = """
+                    {
+                       "entries": [
+                         {
+                           "type": "Parallel",
+                           "entries": [
+                             {
+                               "type": "Heading",
+                               "level": "H2",
+                               "title": "First"
+                             }
+                           ]
+                         }
+                       ]
+                    }""";
+
+            final Document parsed = Document.parse(json);
+
+            assertThat(parsed)
+                    .isEqualTo(new Document(List.of(new Parallel(
+                            List.of(new Heading(Heading.HeadingLevel.H2, "First")),
+                            OptionalInt.empty()))));
+        }
+
+        @Test
+        void returnDeserializedParallelWhenGivenAllOptions() {
+            final String json = """
+                    {
+                       "entries": [
+                         {
+                           "type": "Parallel",
+                           "max_concurrency": 2,
+                           "entries": [
+                             {
+                               "type": "Command",
+                               "commands": ["echo 1"]
+                             }
+                           ]
+                         }
+                       ]
+                    }""";
+
+            final Document parsed = Document.parse(json);
+
+            assertThat(parsed)
+                    .isEqualTo(new Document(List.of(new Parallel(
+                            List.of(new Command(
+                                    List.of("echo 1"),
+                                    Optional.empty(),
+                                    Optional.empty(),
+                                    Optional.empty(),
+                                    Optional.empty(),
+                                    Optional.empty(),
+                                    Optional.empty(),
+                                    Optional.empty(),
+                                    Optional.empty(),
+                                    OptionalInt.empty())),
+                            OptionalInt.of(2)))));
+        }
+    }
+
+    @Nested
+    class RunTests {
+
+        @Test
+        void runEntriesConcurrently() {
+            final CountDownLatch latch = new CountDownLatch(3);
+
+            final Entry entry = new Parallel(List.of(
+                    awaitOthers(latch, "1"),
+                    awaitOthers(latch, "2"),
+                    awaitOthers(latch, "3")),
+                    OptionalInt.of(3));
+
+            final Result result = entry.run();
+
+            assertThat(result)
+                    .describedAs("The entries should wait for each other, which is only possible when they run concurrently")
+                    .isEqualTo(Result.ok("1\n2\n3"));
+        }
+
+        @Test
+        void writeOutputInDeclarationOrder() {
+            final Entry entry = new Parallel(List.of(
+                    command("sleep 0.3", "echo slow"),
+                    command("echo fast")),
+                    OptionalInt.empty());
+
+            final Result result = entry.run();
+
+            assertThat(result)
+                    .isEqualTo(Result.ok("""
+                            ```shell
+                            sleep 0.3
+                            echo slow
+                            ```
+
+                            _Output_
+
+                            ```
+                            slow
+                            ```
+
+                            ```shell
+                            echo fast
+                            ```
+
+                            _Output_
+
+                            ```
+                            fast
+                            ```
+                            """));
+        }
+
+        @Test
+        void displayTheFilesRelativeToThePlaybookDirectory(@TempDir final Path directory) throws IOException {
+            Files.writeString(directory.resolve("notes.txt"), "Notes\n");
+            final Entry entry = new Parallel(List.of(
+                    new DisplayFile(Path.of("notes.txt"), Optional.of("text"), OptionalInt.empty(), OptionalInt.empty(),
+                            Optional.empty(), OptionalInt.empty())),
+                    OptionalInt.empty());
+
+            try (RunContext context = RunContext.create(RunOptions.defaults().withPlaybookDirectory(directory))) {
+                assertThat(entry.run(context))
+                        .isEqualTo(Result.ok("""
+                                ```text
+                                Notes
+                                ```
+                                """));
+            }
+        }
+
+        @Test
+        void doNotStartTheRemainingEntriesOnceOneFails() {
+            final Entry entry = new Parallel(List.of(
+                    new Breakpoint(Optional.empty()),
+                    noCall()),
+                    OptionalInt.of(1));
+
+            final Result result = entry.run();
+
+            assertThat(result)
+                    .isInstanceOf(Result.Error.class);
+        }
+
+        @Test
+        void runFinallyInReverseOrderForTheEntriesThatStarted() {
+            final List<String> finallyOrder = new CopyOnWriteArrayList<>();
+
+            final Parallel entry = new Parallel(List.of(
+                    recordFinally(finallyOrder, "1", false),
+                    recordFinally(finallyOrder, "2", true),
+                    noCall()),
+                    OptionalInt.of(1));
+
+            try (RunContext context = RunContext.create(RunOptions.defaults())) {
+                entry.run(context);
+                entry.runFinally(context);
+            }
+
+            assertThat(finallyOrder)
+                    .containsExactly("2", "1");
+        }
+
+        @Test
+        void runFinallyOfTheEntriesThatStartedWhenOneThrows() {
+            final List<String> finallyOrder = new CopyOnWriteArrayList<>();
+
+            final Parallel entry = new Parallel(List.of(
+                    recordFinally(finallyOrder, "1", false),
+                    new Entry() {
+                        @Override
+                        public Result run() {
+                            throw new IllegalStateException("Failed to run");
+                        }
+
+                        @Override
+                        public void runFinally() {
+                            finallyOrder.add("2");
+                        }
+                    },
+                    noCall()),
+                    OptionalInt.of(1));
+
+            try (RunContext context = RunContext.create(RunOptions.defaults())) {
+                assertThatThrownBy(() -> entry.run(context))
+                        .isInstanceOf(IllegalStateException.class);
+                entry.runFinally(context);
+            }
+
+            assertThat(finallyOrder)
+                    .containsExactly("2", "1");
+        }
+
+        private static Entry awaitOthers(final CountDownLatch latch, final String output) {
+            return () -> {
+                latch.countDown();
+                try {
+                    if (!latch.await(5, TimeUnit.SECONDS)) {
+                        return Result.error("Timed out waiting for the other entries");
+                    }
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return Result.error("Interrupted");
+                }
+                return Result.ok(output);
+            };
+        }
+
+        private static Entry recordFinally(final List<String> finallyOrder, final String name, final boolean fail) {
+            return new Entry() {
+                @Override
+                public Result run() {
+                    return fail ? Result.error(name) : Result.ok(name);
+                }
+
+                @Override
+                public void runFinally() {
+                    finallyOrder.add(name);
+                }
+            };
+        }
+
+        private static Entry noCall() {
+            return new Entry() {
+                @Override
+                public Result run() {
+                    fail("This run block should have not been called");
+                    return Result.error("This run block should have not been called");
+                }
+
+                @Override
+                public void runFinally() {
+                    fail("This finally block should have not been called");
+                }
+            };
+        }
+
+        private static Command command(final String... commands) {
+            return new Command(
+                    List.of(commands),
+                    Optional.of(Duration.ofSeconds(10)),
+                    Optional.empty(),
+                    Optional.empty(),
+                    Optional.empty(),
+                    Optional.empty(),
+                    Optional.of(new Command.CommandOutput(Optional.empty(), Optional.empty(), Optional.empty())),
+                    Optional.empty(),
+                    Optional.empty(),
+                    OptionalInt.empty());
+        }
+    }
+}
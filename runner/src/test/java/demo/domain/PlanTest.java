@@ -0,0 +1,275 @@
+package demo.domain;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+class PlanTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void reportEveryProblemWithItsLocation() throws IOException {
+        final Path playbook = write("""
+                {
+                  "entries": [
+                    {
+                      "type": "Command",
+                      "commands": ["echo 'Hello'"],
+                      "should_finish_within": "5 monkeys"
+                    },
+                    {
+                      "type": "DisplayFile",
+                      "path": "%s"
+                    },
+                    {
+                      "type": "Unknown"
+                    },
+                    {
+                      "type": "Command",
+                      "commands": ["echo 'Hello'"],
+                      "working_dir": "%s"
+                    }
+                  ]
+                }""".formatted(directory.resolve("missing.txt"), directory.resolve("missing-dir")));
+
+        final List<Plan.Problem> problems = Plan.parse(playbook).check(directory);
+
+        assertThat(problems)
+                .extracting(Plan.Problem::pointer, Plan.Problem::line, Plan.Problem::severity)
+                .containsExactly(
+                        tuple("/entries/0/should_finish_within", 6, Plan.Severity.ERROR),
+                        tuple("/entries/1/path", 10, Plan.Severity.WARNING),
+                        tuple("/entries/2", 12, Plan.Severity.ERROR),
+                        tuple("/entries/3/working_dir", 18, Plan.Severity.WARNING));
+        assertThat(problems.getFirst().message())
+                .contains("'5 monkeys' is not a duration");
+    }
+
+    @Test
+    void acceptPathsCreatedByEarlierCommands() throws IOException {
+        final Path project = directory.resolve("demo");
+        final Path playbook = write("""
+                {
+                  "entries": [
+                    {
+                      "type": "Command",
+                      "commands": ["mkdir -p demo/src && echo 'Hello' > demo/src/hello.txt"],
+                      "working_dir": "%s"
+                    },
+                    {
+                      "type": "DisplayFile",
+                      "path": "%s"
+                    },
+                    {
+                      "type": "Command",
+                      "commands": ["ls"],
+                      "working_dir": "%s"
+                    }
+                  ]
+                }""".formatted(directory, project.resolve("src/hello.txt"), project));
+
+        assertThat(Plan.parse(playbook).check(directory)).isEmpty();
+    }
+
+    @Test
+    void onlyWarnAboutPathsThatNoEarlierCommandIsKnownToCreate() throws IOException {
+        final Path playbook = write("""
+                {
+                  "entries": [
+                    {
+                      "type": "Command",
+                      "commands": ["mvn package"],
+                      "working_dir": "%s"
+                    },
+                    {
+                      "type": "DisplayFile",
+                      "path": "%s"
+                    }
+                  ]
+                }""".formatted(directory, directory.resolve("target/demo.jar.sha256")));
+
+        assertThat(Plan.parse(playbook).check(directory))
+                .extracting(Plan.Problem::pointer, Plan.Problem::isError)
+                .containsExactly(tuple("/entries/1/path", false));
+    }
+
+    @Test
+    void doNotCountOnEntriesRunningAtTheSameTime() throws IOException {
+        final Path playbook = write("""
+                {
+                  "entries": [
+                    {
+                      "type": "Parallel",
+                      "entries": [
+                        {
+                          "type": "Command",
+                          "commands": ["touch created.txt"]
+                        },
+                        {
+                          "type": "DisplayFile",
+                          "path": "%s"
+                        }
+                      ]
+                    }
+                  ]
+                }""".formatted(directory.resolve("created.txt")));
+
+        assertThat(Plan.parse(playbook).check(directory))
+                .extracting(Plan.Problem::pointer)
+                .containsExactly("/entries/0/entries/1/path");
+    }
+
+    @Test
+    void checkTheCompiledPlaybookAndReportItsProblemsWhereTheseAreInTheJsonPlaybook() throws IOException {
+        final Path playbook = write("""
+                {
+                  "entries": [
+                    {
+                      "type": "Command",
+                      "commands": ["echo 'Hello'"],
+                      "should_finish_within": "0 seconds"
+                    }
+                  ]
+                }""");
+        Document.compile(playbook);
+
+        final Plan plan = Plan.parse(playbook);
+
+        assertThat(plan.entries()).isEqualTo(Document.parse(playbook).entries());
+        assertThat(plan.check(directory))
+                .extracting(Plan.Problem::pointer, Plan.Problem::line)
+                .containsExactly(tuple("/entries/0/should_finish_within", 6));
+    }
+
+    @Test
+    void reportMalformedJson() throws IOException {
+        final Path playbook = write("""
+                {
+                  "entries": [
+                    {
+                      "type": "Todo",
+                  ]
+                }""");
+
+        final Plan plan = Plan.parse(playbook);
+
+        assertThat(plan.check(directory))
+                .extracting(Plan.Problem::line)
+                .containsExactly(5);
+        assertThatThrownBy(plan::entries)
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void reportTheProblemsOfTheIncludedPlaybooksWhereTheseAreIncluded() throws IOException {
+        final Path setup = Files.writeString(directory.resolve("setup.json"), """
+                {
+                  "entries": [
+                    {
+                      "type": "DisplayFile",
+                      "path": "%s"
+                    }
+                  ]
+                }""".formatted(directory.resolve("missing.txt")));
+        final Path playbook = write("""
+                {
+                  "entries": [
+                    {
+                      "type": "Include",
+                      "path": "%s"
+                    },
+                    {
+                      "type": "Include",
+                      "path": "%s"
+                    }
+                  ]
+                }""".formatted(setup, directory.resolve("missing.json")));
+
+        final List<Plan.Problem> problems = Plan.parse(playbook).check(directory);
+
+        assertThat(problems)
+                .extracting(Plan.Problem::pointer, Plan.Problem::line)
+                .containsExactly(
+                        tuple("/entries/0/path", 5),
+                        tuple("/entries/1/path", 9));
+        assertThat(problems.getFirst().message())
+                .startsWith("In " + setup + " at /entries/0/path: The file");
+    }
+
+    @Test
+    void resolveThePathsAgainstTheDirectoryThePlaybookRunsFrom() throws IOException {
+        Files.createDirectories(directory.resolve("project"));
+        Files.writeString(directory.resolve("notes.txt"), "Notes");
+        final Path playbook = write("""
+                {
+                  "entries": [
+                    {
+                      "type": "DisplayFile",
+                      "path": "notes.txt"
+                    },
+                    {
+                      "type": "Command",
+                      "commands": ["ls"],
+                      "working_dir": "project"
+                    }
+                  ]
+                }""");
+
+        assertThat(Plan.parse(playbook).check(directory)).isEmpty();
+    }
+
+    @Test
+    void onlyWarnAboutEntriesWithoutCommands() throws IOException {
+        final Path playbook = write("""
+                {
+                  "entries": [
+                    {
+                      "type": "Command",
+                      "commands": []
+                    }
+                  ]
+                }""");
+
+        assertThat(Plan.parse(playbook).check(directory))
+                .extracting(Plan.Problem::pointer, Plan.Problem::severity)
+                .containsExactly(tuple("/entries/0/commands", Plan.Severity.WARNING));
+    }
+
+    @Test
+    void handTheScriptsOverToTheRun() throws IOException {
+        final Path playbook = write("""
+                {
+                  "entries": [
+                    {
+                      "type": "Command",
+                      "commands": ["echo 'Hello'"],
+                      "finally_commands": ["echo 'Done'"]
+                    }
+                  ]
+                }""");
+
+        final Plan plan = Plan.parse(playbook);
+        final Command command = (Command) plan.entries().getFirst();
+
+        try (RunContext context = RunContext.create(RunOptions.defaults())) {
+            plan.prepare(context);
+
+            assertThat(context.state(command, Command.Scripts.class))
+                    .contains(command.scripts(context.options().shellMode()));
+        }
+    }
+
+    private Path write(final String playbook) throws IOException {
+        return Files.writeString(directory.resolve("sw-playbook.json"), playbook);
+    }
+}
@@ -0,0 +1,126 @@
+package demo.journal;
+
+import demo.domain.Background;
+import demo.domain.BackgroundAction;
+import demo.domain.Breakpoint;
+import demo.domain.Command;
+import demo.domain.DisplayFile;
+import demo.domain.Document;
+import demo.domain.Markdown;
+import demo.domain.RunContext;
+import demo.domain.RunOptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JournalTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void replayUnchangedEntriesAndContinueFromTheFailedOne() {
+        final Command command = command("date +%s%N");
+        final List<String> first = run(new Document(List.of(command, new Breakpoint(Optional.empty()))), false);
+
+        final List<String> resumed = run(new Document(List.of(command, markdown("Done"))), true);
+
+        assertThat(resumed)
+                .describedAs("The command output should be replayed rather than produced again")
+                .containsExactly(first.getFirst(), "Done\n");
+    }
+
+    @Test
+    void runAgainFromTheFirstChangedEntry() {
+        final Command command = command("date +%s%N");
+        final List<String> first = run(new Document(List.of(markdown("Before"), command)), false);
+
+        final List<String> resumed = run(new Document(List.of(markdown("Changed"), command)), true);
+
+        assertThat(resumed.getFirst()).isEqualTo("Changed\n");
+        assertThat(resumed.get(1))
+                .describedAs("Entries after a changed entry should run again")
+                .isNotEqualTo(first.get(1));
+    }
+
+    @Test
+    void runAgainTheEntriesWhoseFilesChanged() throws IOException {
+        final Path file = directory.resolve("notes.txt");
+        Files.writeString(file, "Before\n");
+        final DisplayFile display = new DisplayFile(file, Optional.empty(), OptionalInt.empty(), OptionalInt.empty(),
+                Optional.empty(), OptionalInt.empty());
+        run(new Document(List.of(display)), false);
+
+        Files.writeString(file, "After, and longer\n");
+        final List<String> resumed = run(new Document(List.of(display)), true);
+
+        assertThat(resumed.getFirst()).contains("After, and longer");
+    }
+
+    @Test
+    void startTheBackgroundProcessesAgainWhenResuming() {
+        final Background background = new Background("app", List.of("echo 'Ready'", "exec sleep 30"), Optional.empty(),
+                Optional.of("Ready"), Optional.of(Duration.ofSeconds(10)));
+        final BackgroundAction stop = new BackgroundAction("app", BackgroundAction.Action.STOP, Optional.empty(),
+                Optional.empty(), Optional.of(true));
+        run(new Document(List.of(markdown("Before"), background, new Breakpoint(Optional.empty()))), false);
+
+        final List<String> resumed = run(new Document(List.of(markdown("Before"), background, stop)), true);
+
+        assertThat(resumed.get(2))
+                .describedAs("The background process should be started again rather than replayed")
+                .contains("Ready")
+                .doesNotContain("Unexpected Outcome");
+    }
+
+    @Test
+    void ignoreJournalWhenNotResuming() {
+        final Command command = command("date +%s%N");
+        final List<String> first = run(new Document(List.of(command)), false);
+
+        final List<String> second = run(new Document(List.of(command)), false);
+
+        assertThat(second).isNotEqualTo(first);
+    }
+
+    private List<String> run(final Document document, final boolean resume) {
+        final RunOptions defaults = RunOptions.defaults();
+        final RunOptions options = new RunOptions(defaults.shellMode(), defaults.outputBufferSize(), defaults.cache(),
+                Optional.of(directory.resolve("README.md.sw-journal")), resume, false, defaults.killGracePeriod(),
+                defaults.fileCacheSize(), defaults.playbookDirectory());
+
+        final List<String> outputs = new ArrayList<>();
+        try (RunContext context = RunContext.create(options)) {
+            document.run(context, outputs::add);
+        }
+        return outputs;
+    }
+
+    private static Markdown markdown(final String line) {
+        return new Markdown(List.of(line), Optional.empty());
+    }
+
+    private static Command command(final String command) {
+        return new Command(
+                List.of(command),
+                Optional.of(Duration.ofSeconds(10)),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.of(new Command.CommandOutput(Optional.empty(), Optional.empty(), Optional.empty())),
+                Optional.empty(),
+                Optional.empty(),
+                OptionalInt.empty());
+    }
+}
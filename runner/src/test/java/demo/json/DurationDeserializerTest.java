@@ -89,6 +89,14 @@ class DurationDeserializerTest {
                 .isEqualTo(Optional.of(Duration.ofMinutes(10)));
     }
 
+    @Test
+    void tellWhetherTheWholeTextIsADuration() {
+        assertThat(DurationDeserializer.isDuration("1 hour 30 minutes 15 seconds")).isTrue();
+        assertThat(DurationDeserializer.isDuration("2 HOURS 5 Minutes")).isTrue();
+        assertThat(DurationDeserializer.isDuration("5 monkeys 10 minutes")).isFalse();
+        assertThat(DurationDeserializer.isDuration("10 secs")).isFalse();
+    }
+
     private TestData deserialize(final String json) throws JsonProcessingException {
         return objectMapper.readValue(json, TestData.class);
     }
@@ -0,0 +1,161 @@
+package demo.output;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OutputFileTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void replaceTheTargetOnlyWhenPublished() throws IOException {
+        final Path target = Files.writeString(directory.resolve("README.md"), "Previous output\n");
+
+        try (OutputFile output = OutputFile.open(target)) {
+            output.write("# Title\n");
+            output.flush();
+
+            assertThat(target)
+                    .describedAs("The target should be replaced only once the output is published")
+                    .hasContent("Previous output");
+
+            output.write("More text\n");
+            output.publish();
+        }
+
+        assertThat(target).hasContent("# Title\nMore text");
+        assertThat(filesIn(directory)).containsExactly(target);
+    }
+
+    @Test
+    void leaveTheTargetAsItWasWhenNotPublished() throws IOException {
+        final Path target = Files.writeString(directory.resolve("README.md"), "Previous output\n");
+
+        try (OutputFile output = OutputFile.open(target)) {
+            output.write("Half written");
+            output.flush();
+        }
+
+        assertThat(target).hasContent("Previous output");
+        assertThat(filesIn(directory)).containsExactly(target);
+    }
+
+    @Test
+    void writeOutputsLargerThanTheQueue() throws IOException {
+        final Path target = directory.resolve("README.md");
+        final String line = "x".repeat(1023) + "\n";
+
+        try (OutputFile output = OutputFile.open(target)) {
+            for (int i = 0; i < 20_000; i++) {
+                output.write(line);
+            }
+            output.publish();
+        }
+
+        assertThat(Files.size(target)).isEqualTo(20_000L * line.length());
+    }
+
+    @Test
+    void createTheMissingParentDirectories() throws IOException {
+        final Path target = directory.resolve("docs").resolve("guides").resolve("README.md");
+
+        try (OutputFile output = OutputFile.open(target)) {
+            output.write("# Title\n");
+            output.publish();
+        }
+
+        assertThat(target).hasContent("# Title");
+    }
+
+    @Test
+    void leaveAnUnchangedTargetAsItWas() throws IOException {
+        final Path target = Files.writeString(directory.resolve("README.md"), "# Title\nSome text\n");
+        final FileTime modified = FileTime.from(Instant.parse("2020-01-01T00:00:00Z"));
+        Files.setLastModifiedTime(target, modified);
+
+        final OutputFile.Published published;
+        try (OutputFile output = OutputFile.open(target)) {
+            output.write("# Title\n");
+            output.flush();
+            output.write("Some text\n");
+            published = output.publish();
+        }
+
+        assertThat(published.changed()).isFalse();
+        assertThat(Files.getLastModifiedTime(target)).isEqualTo(modified);
+        assertThat(filesIn(directory)).containsExactly(target);
+    }
+
+    @Test
+    void replaceTheTargetWhenItHasMoreThanTheOutput() throws IOException {
+        final Path target = Files.writeString(directory.resolve("README.md"), "# Title\nSome text\n");
+
+        final OutputFile.Published published;
+        try (OutputFile output = OutputFile.open(target)) {
+            output.write("# Title\n");
+            published = output.publish();
+        }
+
+        assertThat(published.changed()).isTrue();
+        assertThat(target).hasContent("# Title");
+    }
+
+    @Test
+    void reportTheSectionsThatChanged() throws IOException {
+        final Path target = directory.resolve("README.md");
+        write(target, List.of("Prerequisites", "Build", "Run", "Clean up"), "Build", "./mvnw package");
+
+        final OutputFile.Published published = write(target, List.of("Prerequisites", "Build", "Run", "Deploy"),
+                "Build", "./mvnw verify");
+
+        assertThat(published.changed()).isTrue();
+        assertThat(published.changedSections())
+                .describedAs("The removed section is reported as a change to the section before it")
+                .containsExactly("Build", "Run", "Deploy");
+    }
+
+    @Test
+    void reportAllSectionsOfANewOutput() {
+        final OutputFile.Published published = write(directory.resolve("README.md"), List.of("Build", "Run"),
+                "Build", "./mvnw verify");
+
+        assertThat(published.changedSections()).containsExactly(Sections.PREAMBLE, "Build", "Run");
+    }
+
+    private static OutputFile.Published write(final Path target,
+                                              final List<String> titles,
+                                              final String titleWithCommand,
+                                              final String command) {
+        try (OutputFile output = OutputFile.open(target)) {
+            output.write("[//]: # (Automatically generated by Sociable Weaver)\n");
+            for (final String title : titles) {
+                output.section(title);
+                output.write("## " + title + "\n\n");
+                output.write("```shell\n" + (title.equals(titleWithCommand) ? command : "echo '" + title + "'"));
+                output.write("\n```\n\n");
+                output.flush();
+            }
+            return output.publish();
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static List<Path> filesIn(final Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.toList();
+        }
+    }
+}
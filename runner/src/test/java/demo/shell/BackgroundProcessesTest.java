@@ -0,0 +1,108 @@
+package demo.shell;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BackgroundProcessesTest {
+
+    private ScratchDirectory scratch;
+    private BackgroundProcesses processes;
+
+    @BeforeEach
+    void setUp() {
+        scratch = ScratchDirectory.create();
+        processes = new BackgroundProcesses(1024, scratch, new ProcessReaper(Duration.ofSeconds(1)), Path.of(""));
+    }
+
+    @AfterEach
+    void tearDown() {
+        processes.close();
+        scratch.close();
+    }
+
+    @Test
+    void waitForTheLineTellingThatTheProcessIsReady() {
+        final BackgroundProcess process = processes.start("app",
+                "echo 'Starting'; sleep 0.2; echo 'Started on port 8080'; exec sleep 30", Optional.empty());
+
+        assertThat(process.awaitLine(Pattern.compile("Started on port \\d+"), Duration.ofSeconds(10))).isTrue();
+        assertThat(process.isAlive()).isTrue();
+        try (Stream<String> lines = process.unshownLines()) {
+            assertThat(lines).containsExactly("Starting", "Started on port 8080");
+        }
+        try (Stream<String> lines = process.unshownLines()) {
+            assertThat(lines).isEmpty();
+        }
+    }
+
+    @Test
+    void stopWaitingOnceTheProcessExits() {
+        final BackgroundProcess process = processes.start("app", "echo 'Failed to start'; exit 3", Optional.empty());
+
+        assertThat(process.awaitLine(Pattern.compile("Started"), Duration.ofSeconds(10))).isFalse();
+        assertThat(process.awaitExit(Duration.ofSeconds(10))).isEqualTo(OptionalInt.of(3));
+    }
+
+    @Test
+    void runOneProcessByNameAtATime() {
+        processes.start("app", "sleep 30", Optional.empty());
+
+        assertThatThrownBy(() -> processes.start("app", "sleep 30", Optional.empty()))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void startAProcessUnderTheNameOfAStoppedOne() {
+        final BackgroundProcess stopped = processes.start("app", "echo 'First'; exec sleep 30", Optional.empty());
+        assertThat(stopped.awaitLine(Pattern.compile("First"), Duration.ofSeconds(10))).isTrue();
+
+        assertThat(processes.stop("app")).contains(stopped);
+        assertThat(processes.find("app")).isEmpty();
+
+        final BackgroundProcess started = processes.start("app", "exec sleep 30", Optional.empty());
+        assertThat(started.isAlive()).isTrue();
+        assertThat(stopped.isAlive()).isFalse();
+        try (Stream<String> lines = stopped.unshownLines()) {
+            assertThat(lines).containsExactly("First");
+        }
+    }
+
+    @Test
+    void waitForALineOfALongOutputSpilledToFile() {
+        final BackgroundProcess process = processes.start("app",
+                "for i in $(seq 1 2000); do echo \"Line $i\"; done; echo 'Ready'; exec sleep 30", Optional.empty());
+
+        assertThat(process.awaitLine(Pattern.compile("Ready"), Duration.ofSeconds(10))).isTrue();
+        try (Stream<String> lines = process.unshownLines()) {
+            assertThat(lines)
+                    .hasSize(2001)
+                    .startsWith("Line 1")
+                    .endsWith("Line 2000", "Ready");
+        }
+
+        assertThat(process.awaitLine(Pattern.compile("Line"), Duration.ofMillis(200)))
+                .describedAs("The lines already shown are not waited for")
+                .isFalse();
+    }
+
+    @Test
+    void stopTheProcessesStillRunning() {
+        final BackgroundProcess process = processes.start("app", "sleep 30", Optional.empty());
+
+        processes.close();
+
+        assertThat(process.isAlive()).isFalse();
+        assertThat(processes.find("app")).isEmpty();
+    }
+}
@@ -0,0 +1,113 @@
+package demo.shell;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CapturedOutputTest {
+
+    private ScratchDirectory scratch;
+
+    @BeforeEach
+    void setUp() {
+        scratch = ScratchDirectory.create();
+    }
+
+    @AfterEach
+    void tearDown() {
+        scratch.close();
+    }
+
+    @Test
+    void keepShortOutputInMemory() {
+        try (CapturedOutput output = new CapturedOutput(1024, scratch)) {
+            output.capture(input("1\n2\n3"));
+
+            assertThat(output.hasSpilled()).isFalse();
+            assertThat(output.size()).isEqualTo(5);
+            assertThat(output.lines()).containsExactly("1", "2", "3");
+        }
+    }
+
+    @Test
+    void spillToFileOnceTheThresholdIsExceeded() {
+        final String text = IntStream.rangeClosed(1, 1000)
+                .mapToObj(i -> "Line " + i + '\n')
+                .collect(Collectors.joining());
+
+        try (CapturedOutput output = new CapturedOutput(64, scratch)) {
+            output.capture(input(text));
+            output.appendLine("Last line");
+
+            assertThat(output.hasSpilled()).isTrue();
+            assertThat(output.lines())
+                    .hasSize(1001)
+                    .startsWith("Line 1", "Line 2")
+                    .endsWith("Line 1000", "Last line");
+        }
+    }
+
+    @Test
+    void copyOutputToTheTeeAsItIsCaptured() {
+        final ByteArrayOutputStream tee = new ByteArrayOutputStream();
+
+        try (CapturedOutput output = new CapturedOutput(4, scratch, tee, OutputLimit.none())) {
+            output.capture(input("1\n2\n3\n"));
+
+            assertThat(tee.toString(UTF_8)).isEqualTo("1\n2\n3\n");
+            assertThat(output.lines()).containsExactly("1", "2", "3");
+        }
+    }
+
+    @Test
+    void keepOnlyTheFirstAndLastLinesWhenLimited() {
+        final String text = IntStream.rangeClosed(1, 1000)
+                .mapToObj(i -> "Line " + i + '\n')
+                .collect(Collectors.joining());
+
+        try (CapturedOutput output = new CapturedOutput(1024, scratch, OutputStream.nullOutputStream(), new OutputLimit(2, 3))) {
+            output.capture(input(text));
+            output.capture(input("No new line"));
+
+            assertThat(output.hasSpilled()).isFalse();
+            assertThat(output.droppedLines()).isEqualTo(996);
+            assertThat(output.lines())
+                    .containsExactly(
+                            "Line 1",
+                            "Line 2",
+                            "[... 996 lines omitted, " + (text.length() + 11) + " bytes of output in total ...]",
+                            "Line 999",
+                            "Line 1000",
+                            "No new line");
+        }
+    }
+
+    @Test
+    void truncateTheLinesThatAreTooLongWhenLimited() {
+        final String longLine = "x".repeat(CapturedOutput.MAX_LINE_LENGTH);
+
+        try (CapturedOutput output = new CapturedOutput(1024, scratch, OutputStream.nullOutputStream(), new OutputLimit(2, 1))) {
+            output.capture(input(longLine + "y".repeat(100) + "\nNext\n"));
+            output.capture(input(longLine + "z".repeat(10)));
+
+            assertThat(output.lines())
+                    .containsExactly(
+                            longLine + " [... 100 bytes of this line omitted ...]",
+                            "Next",
+                            longLine + " [... 10 bytes of this line omitted ...]");
+        }
+    }
+
+    private static ByteArrayInputStream input(final String text) {
+        return new ByteArrayInputStream(text.getBytes(UTF_8));
+    }
+}
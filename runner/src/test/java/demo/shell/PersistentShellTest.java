@@ -0,0 +1,130 @@
+package demo.shell;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PersistentShellTest {
+
+    private final ProcessReaper reaper = new ProcessReaper(ProcessReaper.DEFAULT_GRACE_PERIOD);
+    private ScratchDirectory scratch;
+
+    @BeforeEach
+    void setUp() {
+        scratch = ScratchDirectory.create();
+    }
+
+    @AfterEach
+    void tearDown() {
+        scratch.close();
+    }
+
+    @Test
+    void separateTheOutputAndExitCodeOfEachScript() {
+        try (PersistentShell shell = shell()) {
+            final ShellScriptResult first = shell.run(script("echo 1", "echo 2"), TIMEOUT);
+            final ShellScriptResult second = shell.run(script("echo 3"), TIMEOUT);
+
+            assertThat(first.exitCode()).isEqualTo(0);
+            assertThat(first.readOutput()).containsExactly("1", "2");
+            assertThat(second.exitCode()).isEqualTo(0);
+            assertThat(second.readOutput()).containsExactly("3");
+        }
+    }
+
+    @Test
+    void keepOutputThatDoesNotEndWithNewLine() {
+        try (PersistentShell shell = shell()) {
+            final ShellScriptResult result = shell.run(script("printf 'a\\n\\nb'"), TIMEOUT);
+
+            assertThat(result.readOutput()).containsExactly("a", "", "b");
+        }
+    }
+
+    @Test
+    void carryWorkingDirectoryAndEnvironmentOverToTheNextScript() {
+        try (PersistentShell shell = shell()) {
+            shell.run(script("cd target", "export SW_GREETING='Hello there!'"), TIMEOUT);
+            final ShellScriptResult result = shell.run(script("basename \"$(pwd)\"", "echo \"${SW_GREETING}\""), TIMEOUT);
+
+            assertThat(result.readOutput()).containsExactly("target", "Hello there!");
+        }
+    }
+
+    @Test
+    void carryOnlyTheExportedVariablesOverToTheNextScript() {
+        try (PersistentShell shell = shell()) {
+            shell.run(script("SW_LOCAL='local'", "sw_greet() { echo 'Hello'; }", "export SW_EXPORTED='exported'"), TIMEOUT);
+            final ShellScriptResult result = shell.run(script("echo \"${SW_LOCAL:-unset}\"",
+                    "command -v sw_greet || echo 'no function'", "echo \"${SW_EXPORTED}\""), TIMEOUT);
+
+            assertThat(result.readOutput()).containsExactly("unset", "no function", "exported");
+        }
+    }
+
+    @Test
+    void returnTheExitCodeOfTheFailingCommandAndRecover() {
+        try (PersistentShell shell = shell()) {
+            shell.run(script("cd target"), TIMEOUT);
+            final ShellScriptResult failed = shell.run(script("echo before", "exit 3", "echo after"), TIMEOUT);
+            final ShellScriptResult recovered = shell.run(script("basename \"$(pwd)\""), TIMEOUT);
+
+            assertThat(failed.exitCode()).isEqualTo(3);
+            assertThat(failed.readOutput()).containsExactly("before");
+            assertThat(recovered.exitCode()).isEqualTo(0);
+            assertThat(recovered.readOutput())
+                    .describedAs("The working directory should carry over the failed script")
+                    .containsExactly("target");
+        }
+    }
+
+    @Test
+    void keepTheSessionWhenAScriptFails() {
+        try (PersistentShell shell = shell()) {
+            shell.run(script("export SW_BEFORE='set before'"), TIMEOUT);
+            final ShellScriptResult failed = shell.run(script("export SW_DURING='set during'", "false"), TIMEOUT);
+            final ShellScriptResult next = shell.run(script("echo \"${SW_BEFORE}\"", "echo \"${SW_DURING}\""), TIMEOUT);
+
+            assertThat(failed.exitCode()).isEqualTo(1);
+            assertThat(next.readOutput()).containsExactly("set before", "set during");
+        }
+    }
+
+    @Test
+    void doNotLetCommandsReadTheFollowingScripts() {
+        try (PersistentShell shell = shell()) {
+            final ShellScriptResult result = shell.run(script("cat"), TIMEOUT);
+
+            assertThat(result.exitCode()).isEqualTo(0);
+            assertThat(result.readOutput()).isEmpty();
+        }
+    }
+
+    @Test
+    void stopTheShellWhenTheScriptTimesOut() {
+        try (PersistentShell shell = shell()) {
+            final ShellScriptResult timedOut = shell.run(script("echo started", "sleep 5"), Duration.ofMillis(250));
+            final ShellScriptResult next = shell.run(script("echo next"), TIMEOUT);
+
+            assertThat(timedOut.exitCode()).isEqualTo(-1);
+            assertThat(timedOut.readOutput()).containsExactly("started");
+            assertThat(next.readOutput()).containsExactly("next");
+        }
+    }
+
+    private PersistentShell shell() {
+        return new PersistentShell(CapturedOutput.DEFAULT_SPILL_THRESHOLD, scratch, reaper, Path.of(""));
+    }
+
+    private static String script(final String... commands) {
+        return "set -e\n" + String.join("\n", List.of(commands)) + '\n';
+    }
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+}
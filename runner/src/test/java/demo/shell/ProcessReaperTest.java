@@ -0,0 +1,68 @@
+package demo.shell;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProcessReaperTest {
+
+    @TempDir
+    private Path directory;
+
+    private ScratchDirectory scratch;
+
+    @BeforeEach
+    void setUp() {
+        scratch = ScratchDirectory.create();
+    }
+
+    @AfterEach
+    void tearDown() {
+        scratch.close();
+    }
+
+    @Test
+    void stopTheProcessTogetherWithItsDescendants() throws IOException {
+        final ProcessReaper reaper = new ProcessReaper(Duration.ofSeconds(1));
+        final Process process = new ProcessBuilder("/bin/sh", "-c", "sleep 30 & sleep 30 & wait").start();
+        awaitDescendants(process.toHandle(), 2);
+        final List<ProcessHandle> descendants = process.descendants().toList();
+
+        reaper.terminate(process);
+
+        assertThat(process.isAlive()).isFalse();
+        assertThat(descendants).noneMatch(ProcessHandle::isAlive);
+        assertThat(reaper.reaped()).isEqualTo(2);
+    }
+
+    @Test
+    void stopTheProcessesStartedByAScriptThatRanOutOfTime() throws IOException {
+        final ProcessReaper reaper = new ProcessReaper(Duration.ofSeconds(1));
+        final Path pid = directory.resolve("pid");
+
+        try (ShellScriptResult result = new ScriptFileShell(CapturedOutput.DEFAULT_SPILL_THRESHOLD, scratch, reaper, Path.of(""))
+                .run("#!/bin/sh\nsleep 30 &\necho $! > '" + pid + "'\nsleep 30\n", Duration.ofMillis(500))) {
+            assertThat(result.exitCode()).isEqualTo(-1);
+        }
+
+        final long orphan = Long.parseLong(Files.readString(pid).trim());
+        assertThat(ProcessHandle.of(orphan).filter(ProcessHandle::isAlive)).isEmpty();
+        assertThat(reaper.reaped()).isEqualTo(2);
+    }
+
+    private static void awaitDescendants(final ProcessHandle handle, final int count) {
+        final long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (handle.descendants().count() < count && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+}
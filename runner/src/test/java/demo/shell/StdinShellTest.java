@@ -0,0 +1,84 @@
+package demo.shell;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StdinShellTest {
+
+    private final ProcessReaper reaper = new ProcessReaper(ProcessReaper.DEFAULT_GRACE_PERIOD);
+    private ScratchDirectory scratch;
+
+    @BeforeEach
+    void setUp() {
+        scratch = ScratchDirectory.create();
+    }
+
+    @AfterEach
+    void tearDown() {
+        scratch.close();
+    }
+
+    @Test
+    void runScriptWithoutWritingFilesToTheWorkingDirectory() throws IOException {
+        final List<Path> before = listScriptFiles();
+
+        try (ShellScriptResult result = new StdinShell(CapturedOutput.DEFAULT_SPILL_THRESHOLD, scratch, reaper, Path.of("")).run(script("echo 'Hello there!'"), TIMEOUT)) {
+            assertThat(result.exitCode()).isEqualTo(0);
+            assertThat(result.readOutput()).containsExactly("Hello there!");
+        }
+
+        assertThat(listScriptFiles()).isEqualTo(before);
+    }
+
+    @Test
+    void stopAtTheFirstFailingCommand() {
+        try (ShellScriptResult result = new StdinShell(CapturedOutput.DEFAULT_SPILL_THRESHOLD, scratch, reaper, Path.of("")).run(script("echo before", "false", "echo after"), TIMEOUT)) {
+            assertThat(result.exitCode()).isEqualTo(1);
+            assertThat(result.readOutput()).containsExactly("before");
+        }
+    }
+
+    @Test
+    void doNotLetCommandsReadTheRestOfTheScript() {
+        try (ShellScriptResult result = new StdinShell(CapturedOutput.DEFAULT_SPILL_THRESHOLD, scratch, reaper, Path.of("")).run(script("cat", "echo after"), TIMEOUT)) {
+            assertThat(result.exitCode()).isEqualTo(0);
+            assertThat(result.readOutput()).containsExactly("after");
+        }
+    }
+
+    @Test
+    void doNotWaitForTheProcessesLeftRunningInTheBackground() {
+        final long started = System.nanoTime();
+        try (ShellScriptResult result = new StdinShell(CapturedOutput.DEFAULT_SPILL_THRESHOLD, scratch, reaper, Path.of(""))
+                .run(script("echo before", "sleep 30 &", "echo after"), TIMEOUT)) {
+            assertThat(result.exitCode()).isEqualTo(0);
+            assertThat(result.readOutput()).containsExactly("before", "after");
+        }
+
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(TIMEOUT);
+    }
+
+    private static List<Path> listScriptFiles() throws IOException {
+        try (Stream<Path> files = Files.list(Path.of("."))) {
+            return files.filter(path -> path.getFileName().toString().startsWith(".sw-command-"))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static String script(final String... commands) {
+        return "set -e\n" + String.join("\n", List.of(commands)) + '\n';
+    }
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+}
@@ -0,0 +1,110 @@
+package demo.timing;
+
+import demo.domain.Command;
+import demo.domain.Document;
+import demo.domain.Heading;
+import demo.domain.RunContext;
+import demo.domain.RunOptions;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class TimingsTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void measureTheRunAndTheFinallyBlockOfEachEntry() {
+        final Timings timings = run(new Document(List.of(
+                new Heading(Heading.HeadingLevel.H2, "Build"),
+                command("sleep 0.2", Optional.of(List.of("true"))))));
+
+        assertThat(timings.slowest(1))
+                .singleElement()
+                .satisfies(timing -> {
+                    assertThat(timing.index()).isEqualTo(1);
+                    assertThat(timing.type()).isEqualTo("Command");
+                    assertThat(timing.heading()).isEqualTo("Build");
+                    assertThat(timing.phase()).isEqualTo(Timings.Phase.RUN);
+                    assertThat(timing.exitCode()).hasValue(0);
+                    assertThat(timing.executeMillis()).isGreaterThanOrEqualTo(200);
+                });
+        assertThat(timings.timings())
+                .extracting(EntryTiming::index, EntryTiming::phase)
+                .containsExactlyInAnyOrder(
+                        tuple(0, Timings.Phase.RUN),
+                        tuple(1, Timings.Phase.RUN),
+                        tuple(1, Timings.Phase.FINALLY),
+                        tuple(0, Timings.Phase.FINALLY));
+    }
+
+    @Test
+    void writeTheTimingsAsJson() throws IOException {
+        final Timings timings = run(new Document(List.of(command("exit 3", Optional.empty()))));
+        final Path file = directory.resolve("README.md.timings.json");
+
+        timings.writeJson(file);
+
+        assertThat(Files.readString(file))
+                .contains("\"type\" : \"Command\"")
+                .contains("\"exit_code\" : 3")
+                .contains("\"phase\" : \"RUN\"");
+    }
+
+    @Test
+    void emitFlightRecorderEvents() throws IOException {
+        final Path file = directory.resolve("run.jfr");
+
+        try (Recording recording = new Recording()) {
+            recording.enable(EntryEvent.class);
+            recording.start();
+            run(new Document(List.of(command("echo 'Hello'", Optional.empty()))));
+            recording.stop();
+            recording.dump(file);
+        }
+
+        assertThat(RecordingFile.readAllEvents(file))
+                .filteredOn(event -> event.getEventType().getName().equals("demo.Entry"))
+                .extracting(event -> event.getString("phase"))
+                .containsExactly("run", "finally");
+        assertThat(RecordingFile.readAllEvents(file))
+                .filteredOn(event -> event.getString("phase").equals("run"))
+                .extracting((RecordedEvent event) -> event.getInt("exitCode"))
+                .containsExactly(0);
+    }
+
+    private static Timings run(final Document document) {
+        try (RunContext context = RunContext.create(RunOptions.defaults())) {
+            document.run(context, _ -> {});
+            return context.timings();
+        }
+    }
+
+    private static Command command(final String command, final Optional<List<String>> finallyCommands) {
+        return new Command(
+                List.of(command),
+                Optional.of(Duration.ofSeconds(10)),
+                Optional.empty(),
+                Optional.empty(),
+                finallyCommands,
+                Optional.empty(),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.empty(),
+                OptionalInt.empty());
+    }
+}